@@ -0,0 +1,13 @@
+package com.sky.constant;
+
+/**
+ * 分类类型常量
+ */
+public class CategoryConstant {
+
+    //菜品分类
+    public static final Integer DISH = 1;
+
+    //套餐分类
+    public static final Integer SETMEAL = 2;
+}
@@ -0,0 +1,22 @@
+package com.sky.constant;
+
+/**
+ * 分页总数统计方式常量
+ */
+public class PageConstant {
+
+    //精确统计：每次分页前执行count(*)（默认）
+    public static final String COUNT_MODE_EXACT = "exact";
+
+    //不统计总数：多查一条判断是否还有下一页
+    public static final String COUNT_MODE_HAS_NEXT = "hasNext";
+
+    //缓存总数：同一查询条件的总数缓存起来，数据增删或状态变化时失效
+    public static final String COUNT_MODE_CACHED = "cached";
+
+    //游标分页：不统计总数
+    public static final String COUNT_MODE_CURSOR = "cursor";
+
+    //不统计总数/游标分页时每页至少一条，未传或传了非正数的pageSize按此处理
+    public static final int MIN_PAGE_SIZE = 1;
+}
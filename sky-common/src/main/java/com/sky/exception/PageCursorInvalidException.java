@@ -0,0 +1,15 @@
+package com.sky.exception;
+
+/**
+ * 分页游标无效异常
+ */
+public class PageCursorInvalidException extends BaseException {
+
+    public PageCursorInvalidException() {
+    }
+
+    public PageCursorInvalidException(String msg) {
+        super(msg);
+    }
+
+}
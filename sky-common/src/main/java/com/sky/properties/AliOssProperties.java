@@ -13,5 +13,13 @@ public class AliOssProperties {
     private String accessKeyId;
     private String accessKeySecret;
     private String bucketName;
+    //共享OSSClient的最大连接数
+    private int maxConnections = 64;
+    //文件大于等于这个大小（字节）时分片并行上传
+    private long multipartThreshold = 16L * 1024 * 1024;
+    //分片大小（字节），OSS要求除最后一片外不小于100KB
+    private int partSize = 4 * 1024 * 1024;
+    //分片上传线程数，同时也是同时在内存中的分片数上限
+    private int uploadThreads = 4;
 
 }
@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.id")
+@Data
+public class IdProperties {
+
+    /**
+     * 节点id（0~1023），多实例部署时每个实例必须配置成不同的值
+     */
+    private long nodeId;
+
+    /**
+     * id时间戳的起始时间（毫秒），上线后不能再修改，默认2024-01-01 00:00:00（UTC+8）
+     */
+    private long epoch = 1704038400000L;
+
+    /**
+     * 允许容忍的最大时钟回拨毫秒数，超过则拒绝生成id
+     */
+    private long maxBackwardMillis = 5000;
+
+}
@@ -0,0 +1,37 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.image")
+@Data
+public class ImageProperties {
+
+    /**
+     * 缩略图宽度（像素），高度按原图比例缩放；原图不比这个宽时不放大
+     */
+    private int thumbnailWidth = 240;
+
+    /**
+     * 缩略图压缩质量，0~1
+     */
+    private float thumbnailQuality = 0.75f;
+
+    /**
+     * 生成缩略图的线程数
+     */
+    private int workerThreads = 2;
+
+    /**
+     * 等待生成的任务上限，超出的任务直接丢弃（列表页回退到原图）
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * 缩略图生成失败（原图不存在的除外）后，多少秒内不再重新提交
+     */
+    private long retryBackoffSeconds = 300;
+
+}
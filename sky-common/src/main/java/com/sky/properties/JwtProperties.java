@@ -16,6 +16,12 @@ public class JwtProperties {
     private long adminTtl;
     private String adminTokenName;
 
+    /**
+     * 管理端已校验令牌缓存配置：最大缓存条数、单条最长缓存秒数（不会超过令牌自身的exp）
+     */
+    private int adminTokenCacheSize = 10000;
+    private long adminTokenCacheSeconds = 600;
+
     /**
      * 用户端微信用户生成jwt令牌相关配置
      */
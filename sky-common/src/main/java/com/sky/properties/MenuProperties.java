@@ -0,0 +1,23 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.menu")
+@Data
+public class MenuProperties {
+
+    /**
+     * 是否提供菜单增量同步。变更日志只在单个节点的内存中，只记录经过本节点的变更，
+     * 多实例部署时必须关闭，关闭后每次同步都返回全量数据
+     */
+    private boolean incrementalSync = true;
+
+    /**
+     * 套餐-菜品依赖索引与数据库对账的间隔秒数，多实例部署时其他节点上的菜品起停售、套餐变更最多滞后这么久进入本节点索引
+     */
+    private long setmealIndexReconcileSeconds = 60;
+
+}
@@ -0,0 +1,49 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order")
+@Data
+public class OrderProperties {
+
+    /**
+     * 配送费（元），计入订单金额
+     */
+    private BigDecimal deliveryFee = new BigDecimal("6");
+
+    /**
+     * 订单状态内存计数与数据库对账的间隔秒数，也是多实例部署时其他节点上的状态变化计入本节点统计的最大延迟
+     */
+    private long statisticsReconcileSeconds = 60;
+
+    /**
+     * 待付款订单超时取消的分钟数（从下单时间起算）
+     */
+    private long paymentTimeoutMinutes = 15;
+
+    /**
+     * 派送中订单自动完成的分钟数（从派送时间和预计送达时间中较晚的一个起算）
+     */
+    private long autoCompleteMinutes = 120;
+
+    /**
+     * 订单定时任务租约的秒数，持有租约的节点每隔三分之一租约时长续期一次
+     */
+    private long timerLeaseSeconds = 30;
+
+    /**
+     * 持有租约的节点从数据库补充其他节点产生的定时器的间隔秒数
+     */
+    private long timerSyncSeconds = 30;
+
+    /**
+     * 到期订单每条update语句处理的最大订单数
+     */
+    private int timerBatchSize = 500;
+
+}
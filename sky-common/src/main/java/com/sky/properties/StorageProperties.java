@@ -0,0 +1,30 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.storage")
+@Data
+public class StorageProperties {
+
+    public static final String TYPE_ALIOSS = "alioss";
+    public static final String TYPE_LOCAL = "local";
+
+    /**
+     * 文件存储方式：alioss 阿里云OSS，local 本地文件系统
+     */
+    private String type = TYPE_ALIOSS;
+
+    /**
+     * 本地存储时文件存放的目录
+     */
+    private String localDir = "upload";
+
+    /**
+     * 本地存储时文件的访问路径前缀
+     */
+    private String localUrlPrefix = "http://localhost:8080/images/";
+
+}
@@ -19,5 +19,8 @@ public class WeChatProperties {
     private String weChatPayCertFilePath; //平台证书
     private String notifyUrl; //支付成功的回调地址
     private String refundNotifyUrl; //退款成功的回调地址
+    private String payBaseUrl = "https://api.mch.weixin.qq.com"; //微信支付接口地址，压测时指向本地支付网关替身
+    private long userCacheSeconds = 300; //登录用户按openid缓存的秒数
+    private int userCacheSize = 50000; //登录用户缓存的最大条数
 
 }
@@ -1,5 +1,7 @@
 package com.sky.result;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sky.constant.PageConstant;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,8 +17,21 @@ import java.util.List;
 @NoArgsConstructor
 public class PageResult implements Serializable {
 
-    private long total; //总记录数
+    private long total; //总记录数，不统计总数的模式(hasNext、cursor)下固定为-1
 
     private List records; //当前页数据集合
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor; //游标分页模式下取下一页的游标，没有下一页时为null
+
+    private String totalMode = PageConstant.COUNT_MODE_EXACT; //total的来源，取值见PageConstant.COUNT_MODE_*
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean hasNext; //是否还有下一页，只有不统计总数的模式下返回
+
+    public PageResult(long total, List records) {
+        this.total = total;
+        this.records = records;
+    }
+
 }
@@ -1,55 +1,108 @@
 package com.sky.utils;
 
+import com.aliyun.oss.ClientBuilderConfiguration;
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.OSSErrorCode;
 import com.aliyun.oss.OSSException;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.sky.constant.MessageConstant;
+import com.sky.exception.UploadFailedException;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
-@Data
-@AllArgsConstructor
+/**
+ * 阿里云OSS文件存储
+ * 整个应用共用一个OSSClient（内部带连接池），应用关闭时调用shutdown释放；
+ * 超过分片阈值的文件按分片并行上传，同时在内存中的分片数不超过上传线程数
+ */
+@Getter
 @Slf4j
-public class AliOssUtil {
+public class AliOssUtil implements FileStorage {
+
+    private final String endpoint;
+    private final String accessKeyId;
+    private final String accessKeySecret;
+    private final String bucketName;
+    private final long multipartThreshold;
+    private final int partSize;
+    private final int uploadThreads;
+
+    private final OSS ossClient;
+    private final ExecutorService uploadExecutor;
+
+    public AliOssUtil(String endpoint, String accessKeyId, String accessKeySecret, String bucketName) {
+        this(endpoint, accessKeyId, accessKeySecret, bucketName, 64, 16L * 1024 * 1024, 4 * 1024 * 1024, 4);
+    }
+
+    public AliOssUtil(String endpoint, String accessKeyId, String accessKeySecret, String bucketName,
+                      int maxConnections, long multipartThreshold, int partSize, int uploadThreads) {
+        this.endpoint = endpoint;
+        this.accessKeyId = accessKeyId;
+        this.accessKeySecret = accessKeySecret;
+        this.bucketName = bucketName;
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = partSize;
+        this.uploadThreads = uploadThreads;
 
-    private String endpoint;
-    private String accessKeyId;
-    private String accessKeySecret;
-    private String bucketName;
+        ClientBuilderConfiguration configuration = new ClientBuilderConfiguration();
+        configuration.setMaxConnections(maxConnections);
+        this.ossClient = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret, configuration);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.uploadExecutor = Executors.newFixedThreadPool(uploadThreads, r -> {
+            Thread thread = new Thread(r, "oss-upload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
     /**
      * 文件上传
      *
-     * @param bytes
+     * @param inputStream
+     * @param size
      * @param objectName
      * @return
      */
-    public String upload(byte[] bytes, String objectName) {
-
-        // 创建OSSClient实例。
-        OSS ossClient = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret);
-
+    public String upload(InputStream inputStream, long size, String objectName) {
         try {
-            // 创建PutObject请求。
-            ossClient.putObject(bucketName, objectName, new ByteArrayInputStream(bytes));
+            if (size >= multipartThreshold) {
+                uploadMultipart(inputStream, objectName);
+            } else {
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(size);
+                ossClient.putObject(bucketName, objectName, inputStream, metadata);
+            }
         } catch (OSSException oe) {
-            System.out.println("Caught an OSSException, which means your request made it to OSS, "
-                    + "but was rejected with an error response for some reason.");
-            System.out.println("Error Message:" + oe.getErrorMessage());
-            System.out.println("Error Code:" + oe.getErrorCode());
-            System.out.println("Request ID:" + oe.getRequestId());
-            System.out.println("Host ID:" + oe.getHostId());
+            // 请求到达了OSS，但被拒绝
+            log.error("文件上传被OSS拒绝，objectName：{}，错误码：{}，错误信息：{}，RequestId：{}",
+                    objectName, oe.getErrorCode(), oe.getErrorMessage(), oe.getRequestId());
+            throw new UploadFailedException(MessageConstant.UPLOAD_FAILED);
         } catch (ClientException ce) {
-            System.out.println("Caught an ClientException, which means the client encountered "
-                    + "a serious internal problem while trying to communicate with OSS, "
-                    + "such as not being able to access the network.");
-            System.out.println("Error Message:" + ce.getMessage());
-        } finally {
-            if (ossClient != null) {
-                ossClient.shutdown();
-            }
+            // 客户端问题，例如网络不通
+            log.error("文件上传失败，objectName：{}", objectName, ce);
+            throw new UploadFailedException(MessageConstant.UPLOAD_FAILED);
         }
 
         //文件访问路径规则 https://BucketName.Endpoint/ObjectName
@@ -65,4 +118,146 @@ public class AliOssUtil {
 
         return stringBuilder.toString();
     }
+
+    /**
+     * 读取文件
+     *
+     * @param objectName
+     * @return
+     */
+    public InputStream download(String objectName) throws IOException {
+        try {
+            return ossClient.getObject(bucketName, objectName).getObjectContent();
+        } catch (OSSException e) {
+            if (OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                throw new NoSuchFileException(objectName);
+            }
+            throw new IOException("读取OSS文件失败：" + objectName, e);
+        } catch (ClientException e) {
+            throw new IOException("读取OSS文件失败：" + objectName, e);
+        }
+    }
+
+    /**
+     * 文件是否存在
+     *
+     * @param objectName
+     * @return
+     */
+    public boolean exists(String objectName) throws IOException {
+        try {
+            return ossClient.doesObjectExist(bucketName, objectName);
+        } catch (OSSException | ClientException e) {
+            throw new IOException("查询OSS文件失败：" + objectName, e);
+        }
+    }
+
+    /**
+     * 关闭共享的OSSClient和上传线程池
+     */
+    public void shutdown() {
+        uploadExecutor.shutdownNow();
+        ossClient.shutdown();
+    }
+
+    /**
+     * 分片并行上传：按顺序从流里读出分片交给上传线程池，读完后等待全部分片上传完成再合并；任何一个分片失败都会取消整个上传
+     */
+    private void uploadMultipart(InputStream inputStream, String objectName) {
+        String uploadId = ossClient.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, objectName)).getUploadId();
+        Semaphore permits = new Semaphore(uploadThreads);
+        List<Future<PartETag>> futures = new ArrayList<>();
+        try {
+            int partNumber = 0;
+            while (true) {
+                // 拿到许可才读下一个分片，限制同时在内存中的分片数量
+                permits.acquire();
+                byte[] part = new byte[partSize];
+                int length = readFully(inputStream, part);
+                if (length == 0) {
+                    permits.release();
+                    break;
+                }
+                int number = ++partNumber;
+                futures.add(uploadExecutor.submit(() -> {
+                    try {
+                        return uploadPart(objectName, uploadId, number, part, length);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+                if (length < partSize) {
+                    break;
+                }
+            }
+
+            List<PartETag> partETags = new ArrayList<>();
+            for (Future<PartETag> future : futures) {
+                partETags.add(future.get());
+            }
+            partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+            ossClient.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, partETags));
+            log.info("分片上传完成，objectName：{}，分片数：{}", objectName, partETags.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(objectName, uploadId, futures);
+            throw new UploadFailedException(MessageConstant.UPLOAD_FAILED);
+        } catch (ExecutionException e) {
+            abort(objectName, uploadId, futures);
+            if (e.getCause() instanceof OSSException) {
+                throw (OSSException) e.getCause();
+            }
+            if (e.getCause() instanceof ClientException) {
+                throw (ClientException) e.getCause();
+            }
+            log.error("分片上传失败，objectName：{}", objectName, e.getCause());
+            throw new UploadFailedException(MessageConstant.UPLOAD_FAILED);
+        } catch (IOException e) {
+            abort(objectName, uploadId, futures);
+            log.error("读取上传文件失败，objectName：{}", objectName, e);
+            throw new UploadFailedException(MessageConstant.UPLOAD_FAILED);
+        } catch (RuntimeException e) {
+            abort(objectName, uploadId, futures);
+            throw e;
+        }
+    }
+
+    private PartETag uploadPart(String objectName, String uploadId, int partNumber, byte[] part, int length) {
+        UploadPartRequest request = new UploadPartRequest();
+        request.setBucketName(bucketName);
+        request.setKey(objectName);
+        request.setUploadId(uploadId);
+        request.setPartNumber(partNumber);
+        request.setInputStream(new ByteArrayInputStream(part, 0, length));
+        request.setPartSize(length);
+        return ossClient.uploadPart(request).getPartETag();
+    }
+
+    private void abort(String objectName, String uploadId, List<Future<PartETag>> futures) {
+        for (Future<PartETag> future : futures) {
+            future.cancel(true);
+        }
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectName, uploadId));
+        } catch (OSSException | ClientException e) {
+            log.warn("取消分片上传失败，objectName：{}，uploadId：{}", objectName, uploadId, e);
+        }
+    }
+
+    /**
+     * 尽量读满缓冲区，返回实际读到的字节数，0表示流已结束
+     */
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
 }
@@ -0,0 +1,50 @@
+package com.sky.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 文件存储
+ * 阿里云OSS和本地文件系统两种实现，由 sky.storage.type 选择
+ */
+public interface FileStorage {
+
+    /**
+     * 以流的方式上传文件，不会把整个文件读进内存；上传失败抛出UploadFailedException
+     *
+     * @param inputStream 文件内容，由调用方负责关闭
+     * @param size        文件大小（字节）
+     * @param objectName  存储的文件名
+     * @return 文件访问路径
+     */
+    String upload(InputStream inputStream, long size, String objectName);
+
+    /**
+     * 上传内存中的文件
+     *
+     * @param bytes
+     * @param objectName
+     * @return 文件访问路径
+     */
+    default String upload(byte[] bytes, String objectName) {
+        return upload(new ByteArrayInputStream(bytes), bytes.length, objectName);
+    }
+
+    /**
+     * 读取已存储的文件；文件不存在时抛出NoSuchFileException，其他读取失败抛出IOException
+     *
+     * @param objectName 存储的文件名
+     * @return 文件内容，由调用方负责关闭
+     */
+    InputStream download(String objectName) throws IOException;
+
+    /**
+     * 文件是否已存在
+     *
+     * @param objectName 存储的文件名
+     * @return
+     * @throws IOException 无法确定时抛出
+     */
+    boolean exists(String objectName) throws IOException;
+}
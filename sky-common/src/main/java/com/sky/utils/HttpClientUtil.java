@@ -1,6 +1,8 @@
 package com.sky.utils;
 
 import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
@@ -8,38 +10,63 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Http工具类
+ * 所有请求共用一个带连接池的HttpClient：同一主机的连接保持长连接复用，空闲和过期的连接由后台线程定期清理，
+ * 不再每次请求都重新建立TCP+TLS连接
  */
+@Slf4j
 public class HttpClientUtil {
 
     static final  int TIMEOUT_MSEC = 5 * 1000;
 
+    //连接池总连接数和每个主机的连接数上限
+    static final int MAX_TOTAL_CONNECTIONS = 200;
+    static final int MAX_CONNECTIONS_PER_ROUTE = 50;
+    //服务端没有返回Keep-Alive超时时间时，连接最多保持的时间
+    static final long KEEP_ALIVE_MSEC = 30 * 1000;
+    //空闲超过这个时间的连接被关闭
+    static final long IDLE_EVICT_MSEC = 30 * 1000;
+    //连接空闲超过这个时间后，再次使用前先检查是否已被服务端关闭
+    static final int VALIDATE_AFTER_INACTIVITY_MSEC = 2 * 1000;
+    //异步请求的线程数和排队上限，排满后由调用方线程直接执行
+    static final int ASYNC_THREADS = 16;
+    static final int ASYNC_QUEUE_CAPACITY = 1000;
+
+    private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER = buildConnectionManager();
+    private static final CloseableHttpClient HTTP_CLIENT = buildHttpClient();
+    private static final ThreadPoolExecutor ASYNC_EXECUTOR = buildAsyncExecutor();
+
     /**
      * 发送GET方式请求
      * @param url
      * @param paramMap
-     * @return
+     * @return 响应状态为200时返回响应内容，否则返回空字符串
      */
     public static String doGet(String url,Map<String,String> paramMap){
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-
         String result = "";
-        CloseableHttpResponse response = null;
-
         try{
             URIBuilder builder = new URIBuilder(url);
             if(paramMap != null){
@@ -53,21 +80,19 @@ public class HttpClientUtil {
             HttpGet httpGet = new HttpGet(uri);
 
             //发送请求
-            response = httpClient.execute(httpGet);
-
-            //判断响应状态
-            if(response.getStatusLine().getStatusCode() == 200){
-                result = EntityUtils.toString(response.getEntity(),"UTF-8");
+            try (CloseableHttpResponse response = HTTP_CLIENT.execute(httpGet)) {
+                HttpEntity entity = response.getEntity();
+                //判断响应状态
+                if(response.getStatusLine().getStatusCode() == 200){
+                    result = EntityUtils.toString(entity,"UTF-8");
+                }else {
+                    log.warn("GET请求响应状态异常：{}，{}", url, response.getStatusLine());
+                    //读完响应内容，连接才能放回连接池复用
+                    EntityUtils.consume(entity);
+                }
             }
         }catch (Exception e){
-            e.printStackTrace();
-        }finally {
-            try {
-                response.close();
-                httpClient.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            log.error("GET请求失败：{}", url, e);
         }
 
         return result;
@@ -81,43 +106,21 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        CloseableHttpResponse response = null;
-        String resultString = "";
+        // 创建Http Post请求
+        HttpPost httpPost = new HttpPost(url);
 
-        try {
-            // 创建Http Post请求
-            HttpPost httpPost = new HttpPost(url);
-
-            // 创建参数列表
-            if (paramMap != null) {
-                List<NameValuePair> paramList = new ArrayList();
-                for (Map.Entry<String, String> param : paramMap.entrySet()) {
-                    paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
-                }
-                // 模拟表单
-                UrlEncodedFormEntity entity = new UrlEncodedFormEntity(paramList);
-                httpPost.setEntity(entity);
-            }
-
-            httpPost.setConfig(builderRequestConfig());
-
-            // 执行http请求
-            response = httpClient.execute(httpPost);
-
-            resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
-        } finally {
-            try {
-                response.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+        // 创建参数列表
+        if (paramMap != null) {
+            List<NameValuePair> paramList = new ArrayList<>();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
             }
+            // 模拟表单
+            UrlEncodedFormEntity entity = new UrlEncodedFormEntity(paramList);
+            httpPost.setEntity(entity);
         }
 
-        return resultString;
+        return execute(httpPost);
     }
 
     /**
@@ -128,47 +131,125 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost4Json(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        CloseableHttpResponse response = null;
-        String resultString = "";
+        // 创建Http Post请求
+        HttpPost httpPost = new HttpPost(url);
 
-        try {
-            // 创建Http Post请求
-            HttpPost httpPost = new HttpPost(url);
-
-            if (paramMap != null) {
-                //构造json格式数据
-                JSONObject jsonObject = new JSONObject();
-                for (Map.Entry<String, String> param : paramMap.entrySet()) {
-                    jsonObject.put(param.getKey(),param.getValue());
-                }
-                StringEntity entity = new StringEntity(jsonObject.toString(),"utf-8");
-                //设置请求编码
-                entity.setContentEncoding("utf-8");
-                //设置数据类型
-                entity.setContentType("application/json");
-                httpPost.setEntity(entity);
+        if (paramMap != null) {
+            //构造json格式数据
+            JSONObject jsonObject = new JSONObject();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                jsonObject.put(param.getKey(),param.getValue());
             }
+            StringEntity entity = new StringEntity(jsonObject.toString(),"utf-8");
+            //设置请求编码
+            entity.setContentEncoding("utf-8");
+            //设置数据类型
+            entity.setContentType("application/json");
+            httpPost.setEntity(entity);
+        }
 
-            httpPost.setConfig(builderRequestConfig());
+        return execute(httpPost);
+    }
+
+    /**
+     * 发送请求体为任意JSON字符串的POST请求
+     * @param url
+     * @param json
+     * @param headers 额外的请求头，可以为null
+     * @return
+     * @throws IOException
+     */
+    public static String doPost4Json(String url, String json, Map<String, String> headers) throws IOException {
+        HttpPost httpPost = new HttpPost(url);
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                httpPost.addHeader(header.getKey(), header.getValue());
+            }
+        }
+        StringEntity entity = new StringEntity(json, "utf-8");
+        entity.setContentEncoding("utf-8");
+        entity.setContentType("application/json");
+        httpPost.setEntity(entity);
+        return execute(httpPost);
+    }
+
+    /**
+     * 异步发送GET方式请求，在独立的线程池中执行，不占用调用方线程
+     * @param url
+     * @param paramMap
+     * @return
+     */
+    public static CompletableFuture<String> doGetAsync(String url, Map<String, String> paramMap) {
+        return CompletableFuture.supplyAsync(() -> doGet(url, paramMap), ASYNC_EXECUTOR);
+    }
 
-            // 执行http请求
-            response = httpClient.execute(httpPost);
+    /**
+     * 异步发送POST方式请求，请求失败时future以UncheckedIOException结束
+     * @param url
+     * @param paramMap
+     * @return
+     */
+    public static CompletableFuture<String> doPostAsync(String url, Map<String, String> paramMap) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return doPost(url, paramMap);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, ASYNC_EXECUTOR);
+    }
 
-            resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
-        } finally {
+    /**
+     * 异步发送JSON格式的POST请求，请求失败时future以UncheckedIOException结束
+     * @param url
+     * @param paramMap
+     * @return
+     */
+    public static CompletableFuture<String> doPost4JsonAsync(String url, Map<String, String> paramMap) {
+        return CompletableFuture.supplyAsync(() -> {
             try {
-                response.close();
+                return doPost4Json(url, paramMap);
             } catch (IOException e) {
-                e.printStackTrace();
+                throw new UncheckedIOException(e);
             }
+        }, ASYNC_EXECUTOR);
+    }
+
+    /**
+     * 连接池统计：已借出、空闲、等待中的连接数和上限
+     * @return
+     */
+    public static PoolStats getPoolStats() {
+        return CONNECTION_MANAGER.getTotalStats();
+    }
+
+    /**
+     * 等待异步请求的任务数
+     * @return
+     */
+    public static int getAsyncQueueSize() {
+        return ASYNC_EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * 关闭连接池和异步线程池，应用关闭时调用
+     */
+    public static void shutdown() {
+        ASYNC_EXECUTOR.shutdown();
+        try {
+            HTTP_CLIENT.close();
+        } catch (IOException e) {
+            log.warn("关闭HttpClient失败", e);
         }
+    }
 
-        return resultString;
+    private static String execute(HttpPost httpPost) throws IOException {
+        // 执行http请求，响应内容读完后连接自动放回连接池
+        try (CloseableHttpResponse response = HTTP_CLIENT.execute(httpPost)) {
+            return EntityUtils.toString(response.getEntity(), "UTF-8");
+        }
     }
+
     private static RequestConfig builderRequestConfig() {
         return RequestConfig.custom()
                 .setConnectTimeout(TIMEOUT_MSEC)
@@ -176,4 +257,41 @@ public class HttpClientUtil {
                 .setSocketTimeout(TIMEOUT_MSEC).build();
     }
 
+    private static PoolingHttpClientConnectionManager buildConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_TOTAL_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MSEC);
+        return connectionManager;
+    }
+
+    private static CloseableHttpClient buildHttpClient() {
+        //优先使用服务端Keep-Alive响应头给出的时间，没有时最多保持KEEP_ALIVE_MSEC
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? Math.min(keepAlive, KEEP_ALIVE_MSEC) : KEEP_ALIVE_MSEC;
+        };
+        return HttpClients.custom()
+                .setConnectionManager(CONNECTION_MANAGER)
+                .setDefaultRequestConfig(builderRequestConfig())
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(IDLE_EVICT_MSEC, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    private static ThreadPoolExecutor buildAsyncExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(ASYNC_THREADS, ASYNC_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(ASYNC_QUEUE_CAPACITY),
+                r -> {
+                    Thread thread = new Thread(r, "http-async-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
 }
@@ -0,0 +1,90 @@
+package com.sky.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 图片衍生版本的命名规则
+ * 缩略图和原图放在同一位置，文件名为 原图文件名（去掉后缀）+ 后缀，例如 a1b2.png 的缩略图是 a1b2_thumb.jpg
+ */
+public class ImageRenditions {
+
+    public static final String THUMBNAIL_SUFFIX = "_thumb";
+    public static final String JPEG = "jpg";
+    public static final String WEBP = "webp";
+
+    /**
+     * 允许上传和对外访问的图片扩展名（小写），其余类型（html、svg等）可能被浏览器当作可执行内容，一律拒绝
+     */
+    public static final Set<String> ALLOWED_EXTENSIONS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("jpg", "jpeg", "png", "gif", "webp")));
+
+    /**
+     * 文件名的扩展名（小写，不含点），没有扩展名时返回空字符串
+     *
+     * @param filename
+     * @return
+     */
+    public static String extensionOf(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int slash = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\'));
+        int dot = filename.lastIndexOf('.');
+        return dot > slash ? filename.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * 是否是允许的图片扩展名
+     *
+     * @param filename
+     * @return
+     */
+    public static boolean isAllowedImage(String filename) {
+        return ALLOWED_EXTENSIONS.contains(extensionOf(filename));
+    }
+
+    /**
+     * 原图的缩略图访问路径（JPEG），原图为空时返回null
+     *
+     * @param imageUrl 原图访问路径
+     * @return
+     */
+    public static String thumbnailUrl(String imageUrl) {
+        return rename(imageUrl, THUMBNAIL_SUFFIX, JPEG);
+    }
+
+    /**
+     * 访问路径中的存储文件名（最后一个/之后的部分），路径为空时返回null
+     *
+     * @param url
+     * @return
+     */
+    public static String objectNameOf(String url) {
+        if (url == null || url.isEmpty()) {
+            return null;
+        }
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * 衍生版本的文件名（或访问路径），原图为空时返回null
+     *
+     * @param original  原图文件名或访问路径
+     * @param suffix    文件名后缀
+     * @param extension 衍生版本的扩展名
+     * @return
+     */
+    public static String rename(String original, String suffix, String extension) {
+        if (original == null || original.isEmpty()) {
+            return null;
+        }
+        int slash = original.lastIndexOf('/');
+        int dot = original.lastIndexOf('.');
+        String base = dot > slash ? original.substring(0, dot) : original;
+        return base + suffix + "." + extension;
+    }
+}
@@ -0,0 +1,106 @@
+package com.sky.utils;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.UploadFailedException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 本地文件系统存储，用于私有化部署和离线测试
+ * 文件先写到同目录下的临时文件，写完再原子改名，读的一方不会看到写了一半的文件
+ */
+@Getter
+@Slf4j
+public class LocalFileStorage implements FileStorage {
+
+    private final Path baseDir;
+    private final String urlPrefix;
+
+    /**
+     * @param baseDir   文件存放目录
+     * @param urlPrefix 文件访问路径前缀，例如 http://localhost:8080/images/
+     */
+    public LocalFileStorage(String baseDir, String urlPrefix) {
+        this.baseDir = Paths.get(baseDir).toAbsolutePath().normalize();
+        this.urlPrefix = urlPrefix.endsWith("/") ? urlPrefix : urlPrefix + "/";
+    }
+
+    /**
+     * 文件上传
+     *
+     * @param inputStream
+     * @param size
+     * @param objectName
+     * @return
+     */
+    public String upload(InputStream inputStream, long size, String objectName) {
+        Path target = resolve(objectName);
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+            Files.copy(inputStream, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("文件保存失败，objectName：{}", objectName, e);
+            deleteQuietly(temp);
+            throw new UploadFailedException(MessageConstant.UPLOAD_FAILED);
+        }
+
+        String url = urlPrefix + objectName;
+        log.info("文件上传到:{}", url);
+        return url;
+    }
+
+    /**
+     * 读取文件
+     *
+     * @param objectName
+     * @return
+     */
+    public InputStream download(String objectName) throws IOException {
+        return Files.newInputStream(resolve(objectName));
+    }
+
+    /**
+     * 文件是否存在
+     *
+     * @param objectName
+     * @return
+     */
+    public boolean exists(String objectName) {
+        return Files.isRegularFile(resolve(objectName));
+    }
+
+    /**
+     * 文件名对应的本地路径，不允许通过 ../ 跳出存放目录
+     *
+     * @param objectName
+     * @return
+     */
+    public Path resolve(String objectName) {
+        Path path = baseDir.resolve(objectName).normalize();
+        if (!path.startsWith(baseDir) || path.equals(baseDir)) {
+            throw new UploadFailedException(MessageConstant.UPLOAD_FAILED);
+        }
+        return path;
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("临时文件删除失败：{}", path, e);
+        }
+    }
+}
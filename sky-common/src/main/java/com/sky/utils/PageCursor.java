@@ -0,0 +1,83 @@
+package com.sky.utils;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.PageCursorInvalidException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 游标（keyset）分页的游标编解码
+ * 游标里按顺序存放上一页最后一行的排序键和id，对前端是不透明的字符串
+ */
+public class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String[] keys;
+
+    private PageCursor(String[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * 把上一页最后一行的排序键编码成游标
+     * @param keys 排序键，按排序顺序传入，最后一个一般是id
+     * @return
+     */
+    public static String encode(Object... keys) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                stringBuilder.append(SEPARATOR);
+            }
+            stringBuilder.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(stringBuilder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     * @param cursor 游标
+     * @param size   期望的排序键个数
+     * @return
+     */
+    public static PageCursor decode(String cursor, int size) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = text.split("\\|", -1);
+            if (keys.length != size) {
+                throw new PageCursorInvalidException(MessageConstant.PAGE_CURSOR_INVALID);
+            }
+            return new PageCursor(keys);
+        } catch (IllegalArgumentException e) {
+            throw new PageCursorInvalidException(MessageConstant.PAGE_CURSOR_INVALID);
+        }
+    }
+
+    public Long getLong(int index) {
+        try {
+            return Long.valueOf(keys[index]);
+        } catch (NumberFormatException e) {
+            throw new PageCursorInvalidException(MessageConstant.PAGE_CURSOR_INVALID);
+        }
+    }
+
+    public Integer getInteger(int index) {
+        try {
+            return Integer.valueOf(keys[index]);
+        } catch (NumberFormatException e) {
+            throw new PageCursorInvalidException(MessageConstant.PAGE_CURSOR_INVALID);
+        }
+    }
+
+    public LocalDateTime getDateTime(int index) {
+        try {
+            return LocalDateTime.parse(keys[index]);
+        } catch (RuntimeException e) {
+            throw new PageCursorInvalidException(MessageConstant.PAGE_CURSOR_INVALID);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.sky.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的64位趋势递增id生成器（snowflake结构）
+ * 1位符号 + 41位毫秒时间戳（相对epoch） + 10位节点id + 12位序列号；
+ * 当前的 时间戳+序列号 压在一个AtomicLong里，用CAS推进，不加锁也不会sleep
+ *
+ * 时钟回拨：回拨期间继续沿用上次的时间戳递增序列号（序列号用完则向后借1毫秒），
+ * 生成的id仍然单调递增；回拨（或借出的时间）超过maxBackwardMillis时拒绝发号，避免和未来的id冲突
+ */
+public class SnowflakeIdGenerator {
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final long epoch;
+    private final long maxBackwardMillis;
+
+    // 高位是最近一次发号的时间戳（相对epoch），低12位是该毫秒内已用到的序列号
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param nodeId            节点id，0~1023，多实例部署时每个实例必须不同
+     * @param epoch             起始时间（毫秒时间戳），一经使用不能再修改
+     * @param maxBackwardMillis 允许容忍的最大时钟回拨毫秒数
+     */
+    public SnowflakeIdGenerator(long nodeId, long epoch, long maxBackwardMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点id必须在0~" + MAX_NODE_ID + "之间：" + nodeId);
+        }
+        if (epoch > System.currentTimeMillis()) {
+            throw new IllegalArgumentException("epoch不能晚于当前时间：" + epoch);
+        }
+        this.nodeId = nodeId;
+        this.epoch = epoch;
+        this.maxBackwardMillis = maxBackwardMillis;
+    }
+
+    /**
+     * 生成下一个id
+     * @return
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTime = current >>> SEQUENCE_BITS;
+            long sequence = current & MAX_SEQUENCE;
+            long now = System.currentTimeMillis() - epoch;
+
+            long next;
+            if (now > lastTime) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                if (lastTime - now > maxBackwardMillis) {
+                    throw new IllegalStateException("系统时钟回拨" + (lastTime - now) + "ms，超过允许的"
+                            + maxBackwardMillis + "ms，拒绝生成id");
+                }
+                // 同一毫秒内（或时钟回拨中）：序列号加一，用完了就借下一毫秒
+                next = sequence < MAX_SEQUENCE ? current + 1 : (lastTime + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & MAX_SEQUENCE);
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+}
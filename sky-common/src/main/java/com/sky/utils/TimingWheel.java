@@ -0,0 +1,174 @@
+package com.sky.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分层时间轮
+ * 每层64个槽，第0层每槽一个tick，第n层每槽 64^n 个tick；到期时间越远放在越高的层，
+ * 推进到高层槽的边界时把槽里的定时器降级到低层，第0层当前槽里的定时器即为到期；
+ * 超出最高层范围的定时器放在溢出集合里，最高层推进时再尝试放回
+ *
+ * 添加、删除和每个tick的推进都是O(1)（降级按定时器均摊），与定时器总数无关；
+ * 定时器以long型id标识，同一id重复添加会覆盖之前的到期时间。所有方法都已同步，可以多线程调用
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final int levels;
+    private final List<List<Set<Long>>> wheels;
+    private final Set<Long> overflow = new HashSet<>();
+    // 已到期、等待下一次advance返回的定时器
+    private final Set<Long> due = new HashSet<>();
+    private final Map<Long, Timer> timers = new HashMap<>();
+
+    private long currentTick;
+
+    /**
+     * @param tickMillis 每个tick的毫秒数，即定时精度
+     * @param levels     层数，覆盖范围为 tickMillis * 64^levels
+     * @param nowMillis  当前时间
+     */
+    public TimingWheel(long tickMillis, int levels, long nowMillis) {
+        if (tickMillis <= 0 || levels <= 0 || levels * SLOT_BITS >= 63) {
+            throw new IllegalArgumentException("时间轮参数不合法：tickMillis=" + tickMillis + "，levels=" + levels);
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.wheels = new ArrayList<>(levels);
+        for (int i = 0; i < levels; i++) {
+            List<Set<Long>> slots = new ArrayList<>(SLOTS);
+            for (int j = 0; j < SLOTS; j++) {
+                slots.add(new HashSet<>());
+            }
+            wheels.add(slots);
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * 添加（或覆盖）一个定时器，到期时间不早于deadlineMillis；已经过期的在下一次advance时返回
+     * @param id
+     * @param deadlineMillis
+     */
+    public synchronized void add(long id, long deadlineMillis) {
+        remove(id);
+        // 向上取整，保证不会提前到期
+        Timer timer = new Timer(id, (deadlineMillis + tickMillis - 1) / tickMillis);
+        timers.put(id, timer);
+        place(timer);
+    }
+
+    /**
+     * 删除定时器
+     * @param id
+     * @return 定时器是否存在
+     */
+    public synchronized boolean remove(long id) {
+        Timer timer = timers.remove(id);
+        if (timer == null) {
+            return false;
+        }
+        timer.bucket.remove(id);
+        return true;
+    }
+
+    /**
+     * 推进到当前时间，返回这期间到期的定时器id，返回的定时器同时被删除
+     * @param nowMillis
+     * @return
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 最高层推进时，溢出的定时器可能已经进入最高层的范围
+            if ((currentTick & mask(levels - 1)) == 0 && !overflow.isEmpty()) {
+                cascade(overflow);
+            }
+            // 从高到低降级，降到下一层当前槽的定时器会在同一个tick里继续处理
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & mask(level)) == 0) {
+                    cascade(slot(level, currentTick));
+                }
+            }
+            cascade(slot(0, currentTick));
+        }
+
+        List<Long> expired = new ArrayList<>(due);
+        for (Long id : expired) {
+            timers.remove(id);
+        }
+        due.clear();
+        return expired;
+    }
+
+    /**
+     * 清空全部定时器
+     */
+    public synchronized void clear() {
+        for (Timer timer : timers.values()) {
+            timer.bucket.clear();
+        }
+        timers.clear();
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    private void cascade(Set<Long> bucket) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Long id : ids) {
+            place(timers.get(id));
+        }
+    }
+
+    private void place(Timer timer) {
+        if (timer.tick <= currentTick) {
+            timer.bucket = due;
+        } else {
+            timer.bucket = overflow;
+            for (int level = 0; level < levels; level++) {
+                int shift = level * SLOT_BITS;
+                if ((timer.tick >>> shift) - (currentTick >>> shift) < SLOTS) {
+                    timer.bucket = slot(level, timer.tick);
+                    break;
+                }
+            }
+        }
+        timer.bucket.add(timer.id);
+    }
+
+    private Set<Long> slot(int level, long tick) {
+        return wheels.get(level).get((int) ((tick >>> (level * SLOT_BITS)) & SLOT_MASK));
+    }
+
+    // 第level层一个槽对应的tick数减一
+    private static long mask(int level) {
+        return (1L << (level * SLOT_BITS)) - 1;
+    }
+
+    private static final class Timer {
+        private final long id;
+        private final long tick;
+        private Set<Long> bucket;
+
+        private Timer(long id, long tick) {
+            this.id = id;
+            this.tick = tick;
+        }
+    }
+}
@@ -5,21 +5,27 @@ import com.alibaba.fastjson.JSONObject;
 import com.sky.properties.WeChatProperties;
 import com.wechat.pay.contrib.apache.httpclient.WechatPayHttpClientBuilder;
 import com.wechat.pay.contrib.apache.httpclient.util.PemUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
 
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.security.PrivateKey;
 import java.security.Signature;
@@ -28,48 +34,127 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 微信支付工具类
  */
 @Component
+@Slf4j
 public class WeChatPayUtil {
 
-    //微信支付下单接口地址
-    public static final String JSAPI = "https://api.mch.weixin.qq.com/v3/pay/transactions/jsapi";
+    //微信支付下单接口路径，完整地址为 sky.wechat.pay-base-url + 路径
+    public static final String JSAPI = "/v3/pay/transactions/jsapi";
 
-    //申请退款接口地址
-    public static final String REFUNDS = "https://api.mch.weixin.qq.com/v3/refund/domestic/refunds";
+    //申请退款接口路径
+    public static final String REFUNDS = "/v3/refund/domestic/refunds";
+
+    //检查密钥和证书文件是否被替换的最短间隔
+    private static final long RELOAD_CHECK_INTERVAL_MSEC = 10 * 1000;
+    //空闲超过这个时间的连接被关闭
+    private static final long IDLE_CONNECTION_MSEC = 30 * 1000;
+    //建立连接、从连接池取连接、等待响应的超时时间，微信接口挂起时请求及时失败，不会占满连接池
+    private static final int TIMEOUT_MSEC = 5 * 1000;
 
     @Autowired
     private WeChatProperties weChatProperties;
 
+    //所有签名客户端共用的连接池，重新加载密钥后新客户端继续复用已有连接
+    private final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    private volatile Credentials credentials;
+    private volatile long lastCheckTime;
+
+    public WeChatPayUtil() {
+        connectionManager.setMaxTotal(100);
+        connectionManager.setDefaultMaxPerRoute(50);
+        connectionManager.setValidateAfterInactivity(2 * 1000);
+    }
+
+    /**
+     * 应用关闭时释放连接池
+     */
+    @PreDestroy
+    public void shutdown() {
+        connectionManager.shutdown();
+    }
+
     /**
      * 获取调用微信接口的客户端工具对象
+     * 商户私钥、平台证书和签名客户端只加载一次，之后复用；文件被替换（修改时间或大小变化）时重新加载
      *
      * @return
      */
-    private CloseableHttpClient getClient() {
-        PrivateKey merchantPrivateKey = null;
-        try {
-            //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
-            merchantPrivateKey = PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath())));
-            //加载平台证书文件
-            X509Certificate x509Certificate = PemUtil.loadCertificate(new FileInputStream(new File(weChatProperties.getWeChatPayCertFilePath())));
-            //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
-            List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
-
-            WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
-                    .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
-                    .withWechatPay(wechatPayCertificates);
-
-            // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
-            CloseableHttpClient httpClient = builder.build();
-            return httpClient;
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-            return null;
+    private CloseableHttpClient getClient() throws IOException {
+        return getCredentials().httpClient;
+    }
+
+    private Credentials getCredentials() throws IOException {
+        Credentials current = credentials;
+        long now = System.currentTimeMillis();
+        if (current != null && now - lastCheckTime < RELOAD_CHECK_INTERVAL_MSEC) {
+            return current;
+        }
+        synchronized (this) {
+            current = credentials;
+            if (current != null && now - lastCheckTime < RELOAD_CHECK_INTERVAL_MSEC) {
+                return current;
+            }
+            //支持 classpath: 开头的路径，本地支付网关替身使用打包在资源目录里的测试密钥
+            File privateKeyFile = ResourceUtils.getFile(weChatProperties.getPrivateKeyFilePath());
+            File certFile = ResourceUtils.getFile(weChatProperties.getWeChatPayCertFilePath());
+            String fingerprint = fingerprint(privateKeyFile) + "|" + fingerprint(certFile);
+            if (current == null || !current.fingerprint.equals(fingerprint)) {
+                current = load(privateKeyFile, certFile, fingerprint);
+                credentials = current;
+            }
+            //顺带清理空闲和过期的连接
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(IDLE_CONNECTION_MSEC, TimeUnit.MILLISECONDS);
+            lastCheckTime = now;
+            return current;
+        }
+    }
+
+    private Credentials load(File privateKeyFile, File certFile, String fingerprint) throws IOException {
+        PrivateKey merchantPrivateKey;
+        X509Certificate x509Certificate;
+        //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
+        try (FileInputStream inputStream = new FileInputStream(privateKeyFile)) {
+            merchantPrivateKey = PemUtil.loadPrivateKey(inputStream);
+        }
+        //加载平台证书文件
+        try (FileInputStream inputStream = new FileInputStream(certFile)) {
+            x509Certificate = PemUtil.loadCertificate(inputStream);
         }
+        //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
+        List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
+
+        WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
+                .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
+                .withWechatPay(wechatPayCertificates);
+        builder.setConnectionManager(connectionManager);
+        //连接池由本类管理，旧客户端被替换后不需要关闭
+        builder.setConnectionManagerShared(true);
+        builder.setDefaultRequestConfig(builderRequestConfig());
+
+        // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
+        CloseableHttpClient httpClient = builder.build();
+        log.info("微信支付商户私钥和平台证书已加载：{}", fingerprint);
+        return new Credentials(fingerprint, merchantPrivateKey, httpClient);
+    }
+
+    private static RequestConfig builderRequestConfig() {
+        return RequestConfig.custom()
+                .setConnectTimeout(TIMEOUT_MSEC)
+                .setConnectionRequestTimeout(TIMEOUT_MSEC)
+                .setSocketTimeout(TIMEOUT_MSEC).build();
+    }
+
+    private static String fingerprint(File file) throws IOException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+        return file.getPath() + "@" + file.lastModified() + ":" + file.length();
     }
 
     /**
@@ -88,13 +173,9 @@ public class WeChatPayUtil {
         httpPost.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
         httpPost.setEntity(new StringEntity(body, "UTF-8"));
 
-        CloseableHttpResponse response = httpClient.execute(httpPost);
-        try {
-            String bodyAsString = EntityUtils.toString(response.getEntity());
-            return bodyAsString;
-        } finally {
-            httpClient.close();
-            response.close();
+        //响应内容读完后连接放回连接池，客户端本身不关闭
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            return EntityUtils.toString(response.getEntity());
         }
     }
 
@@ -112,13 +193,8 @@ public class WeChatPayUtil {
         httpGet.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
         httpGet.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
 
-        CloseableHttpResponse response = httpClient.execute(httpGet);
-        try {
-            String bodyAsString = EntityUtils.toString(response.getEntity());
-            return bodyAsString;
-        } finally {
-            httpClient.close();
-            response.close();
+        try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+            return EntityUtils.toString(response.getEntity());
         }
     }
 
@@ -151,7 +227,7 @@ public class WeChatPayUtil {
         jsonObject.put("payer", payer);
 
         String body = jsonObject.toJSONString();
-        return post(JSAPI, body);
+        return post(weChatProperties.getPayBaseUrl() + JSAPI, body);
     }
 
     /**
@@ -188,7 +264,8 @@ public class WeChatPayUtil {
             byte[] message = signMessage.getBytes();
 
             Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath()))));
+            //复用已加载的商户私钥，不再重新读取和解析私钥文件
+            signature.initSign(getCredentials().privateKey);
             signature.update(message);
             String packageSign = Base64.getEncoder().encodeToString(signature.sign());
 
@@ -230,6 +307,21 @@ public class WeChatPayUtil {
         String body = jsonObject.toJSONString();
 
         //调用申请退款接口
-        return post(REFUNDS, body);
+        return post(weChatProperties.getPayBaseUrl() + REFUNDS, body);
+    }
+
+    /**
+     * 已加载的商户私钥和签名客户端，整体替换
+     */
+    private static final class Credentials {
+        private final String fingerprint;
+        private final PrivateKey privateKey;
+        private final CloseableHttpClient httpClient;
+
+        private Credentials(String fingerprint, PrivateKey privateKey, CloseableHttpClient httpClient) {
+            this.fingerprint = fingerprint;
+            this.privateKey = privateKey;
+            this.httpClient = httpClient;
+        }
     }
 }
@@ -0,0 +1,16 @@
+package com.sky.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class CategorySortDTO implements Serializable {
+
+    //主键
+    private Long id;
+
+    //排序
+    private Integer sort;
+
+}
@@ -16,4 +16,10 @@ public class EmployeePageQueryDTO implements Serializable {
     //每页显示记录数
     private int pageSize;
 
+    //游标分页：不传走原来的页码分页；传空串表示游标模式的第一页，之后传上一页返回的nextCursor
+    private String cursor;
+
+    //总数统计方式：exact(默认) / hasNext(不统计总数) / cached(缓存总数)，见PageConstant
+    private String countMode;
+
 }
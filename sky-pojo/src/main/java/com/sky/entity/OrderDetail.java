@@ -1,5 +1,7 @@
 package com.sky.entity;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,12 +21,15 @@ public class OrderDetail implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // 明细id和订单id由SnowflakeIdGenerator生成，超过JavaScript能精确表示的整数范围，按字符串输出
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
 
     //名称
     private String name;
 
     //订单id
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long orderId;
 
     //菜品id
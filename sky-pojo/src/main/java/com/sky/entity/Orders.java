@@ -1,5 +1,7 @@
 package com.sky.entity;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -37,6 +39,8 @@ public class Orders implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // 订单id由SnowflakeIdGenerator生成，超过JavaScript能精确表示的整数范围，按字符串输出
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
 
     //订单号
@@ -99,6 +103,9 @@ public class Orders implements Serializable {
     //送达时间
     private LocalDateTime deliveryTime;
 
+    //派送中订单的自动完成时间，派送时按 max(派送时间, 预计送达时间) + 自动完成时长 计算
+    private LocalDateTime autoCompleteTime;
+
     //打包费
     private int packAmount;
 
@@ -26,6 +26,8 @@ public class DishVO implements Serializable {
     private BigDecimal price;
     //图片
     private String image;
+    //缩略图，列表页使用；上传后异步生成，尚未生成时客户端回退到原图
+    private String thumbnail;
     //描述信息
     private String description;
     //0 停售 1 起售
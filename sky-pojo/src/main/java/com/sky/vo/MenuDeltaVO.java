@@ -0,0 +1,48 @@
+package com.sky.vo;
+
+import com.sky.entity.Category;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuDeltaVO implements Serializable {
+
+    //本次同步到的版本号，下次同步时带上
+    private Long version;
+
+    //是否为全量数据：true时客户端应丢弃本地菜单，用本次返回的数据替换
+    private Boolean full;
+
+    //新增或修改的分类（起售中）
+    @Builder.Default
+    private List<Category> categories = new ArrayList<>();
+
+    //新增或修改的菜品（起售中，带口味）
+    @Builder.Default
+    private List<DishVO> dishes = new ArrayList<>();
+
+    //新增或修改的套餐（起售中，带包含的菜品）
+    @Builder.Default
+    private List<SetmealVO> setmeals = new ArrayList<>();
+
+    //被删除或禁用的分类id
+    @Builder.Default
+    private List<Long> removedCategoryIds = new ArrayList<>();
+
+    //被删除或停售的菜品id
+    @Builder.Default
+    private List<Long> removedDishIds = new ArrayList<>();
+
+    //被删除或停售的套餐id
+    @Builder.Default
+    private List<Long> removedSetmealIds = new ArrayList<>();
+}
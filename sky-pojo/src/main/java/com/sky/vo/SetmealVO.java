@@ -37,6 +37,9 @@ public class SetmealVO implements Serializable {
     //图片
     private String image;
 
+    //缩略图，列表页使用；上传后异步生成，尚未生成时客户端回退到原图
+    private String thumbnail;
+
     //更新时间
     private LocalDateTime updateTime;
 
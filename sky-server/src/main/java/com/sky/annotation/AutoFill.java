@@ -9,6 +9,7 @@ import java.lang.annotation.Target;
 
 /**
  * 自定义注解，用于标识某个方法需要进行公共字段自动填充处理
+ * 方法的第一个参数可以是单个实体，也可以是实体的集合或数组（批量插入/更新时整批共用同一个时间和操作人）
  * @param
  * @return
  */
@@ -0,0 +1,17 @@
+package com.sky.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 自定义注解，标识Controller读写的是哪类资源，由ETagInterceptor统一处理：
+ * GET请求返回该资源当前版本号作为ETag，If-None-Match一致时直接返回304；其他请求成功后版本号加一
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})  // 可以加在Controller类上，也可以加在单个方法上覆盖类上的配置
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ETagResource {
+    // 资源名称，见ResourceVersions里的常量
+    String value();
+}
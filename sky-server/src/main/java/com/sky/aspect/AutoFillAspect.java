@@ -6,17 +6,20 @@ import com.sky.context.BaseContext;
 import com.sky.enumeration.OperationType;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
-import org.aspectj.lang.reflect.MemberSignature;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 自定义切面 实现公共字段自动填充处理逻辑
@@ -28,6 +31,9 @@ import java.time.LocalDateTime;
 @Slf4j
 public class AutoFillAspect {
 
+    // 每个实体类只在第一次被填充时查找一次setter，之后直接复用编译好的MethodHandle
+    private static final Map<Class<?>, FillSetters> SETTERS = new ConcurrentHashMap<>();
+
     // 指定切入点（对哪些类的哪些方法进行拦截）
     // 拦截mapper包下的 所有接口的 所有方法(参数不限) 且 标注了Autofill的方法
     // 符合拦截条件的方法都会执行下面的autoFillPointCut方法
@@ -35,8 +41,8 @@ public class AutoFillAspect {
     public void autoFillPointCut(){}
 
     @Before("autoFillPointCut()") // 表示：在autoFillPointCut()定义的切入点匹配的方法执行之前先执行下面的 autoFill() 方法。
-    public void autoFill(JoinPoint joinPoint) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException { // joinPoint 提供了当前方法调用的元数据，可通过它获取当前方法的参数、方法签名等信息。
-        log.info("开始进行公共字段自动填充");
+    public void autoFill(JoinPoint joinPoint) throws Throwable { // joinPoint 提供了当前方法调用的元数据，可通过它获取当前方法的参数、方法签名等信息。
+        log.debug("开始进行公共字段自动填充");
 
         // 获取当前被拦截到的方法的数据操作类型
         MethodSignature signature = (MethodSignature) joinPoint.getSignature(); // 方法签名对象
@@ -46,34 +52,96 @@ public class AutoFillAspect {
         // 获取当前方法的参数实体
         Object[] args = joinPoint.getArgs();          // 获取了方法的所有参数
         if (args == null || args.length==0){return;}  // 参数非空检查
-        Object entity = args[0];                      // 默认实体对象每次都为所有参数里的第一个对象
+        Object entity = args[0];                      // 默认实体对象每次都为所有参数里的第一个对象（可以是单个实体，也可以是实体的集合或数组）
+        if (entity == null){return;}
 
         // 准备当前操作的相关公共数据（updatetime updateuser createtime createuser）
+        // 批量操作时所有元素共用同一个时间和操作人
         LocalDateTime now = LocalDateTime.now();
         Long currentID = BaseContext.getCurrentId();
 
+        if (entity instanceof Collection){
+            // 批量插入/更新：一次遍历为集合里的每个元素赋值
+            FillSetters setters = null;
+            for (Object element : (Collection<?>) entity) {
+                setters = fill(element, setters, operationType, now, currentID);
+            }
+        }else if (entity instanceof Object[]){
+            FillSetters setters = null;
+            for (Object element : (Object[]) entity) {
+                setters = fill(element, setters, operationType, now, currentID);
+            }
+        }else {
+            fill(entity, null, operationType, now, currentID);
+        }
+    }
+
+    /**
+     * 为单个实体对象的公共字段赋值
+     * @param setters 上一个元素使用的setter，同类元素直接复用，避免批量时每个元素都查一次缓存
+     * @return 本次使用的setter
+     */
+    private static FillSetters fill(Object entity, FillSetters setters, OperationType operationType,
+                                    LocalDateTime now, Long currentID) throws Throwable {
+        if (entity == null){return setters;}
+
+        // 从缓存里取出该实体类预先编译好的setter（父类继承的setter也能找到），实体类没有的字段直接跳过
+        if (setters == null || setters.entityClass != entity.getClass()){
+            setters = SETTERS.computeIfAbsent(entity.getClass(), FillSetters::new);
+        }
+
         // 根据数据操作类型为实体对象的公共属性赋值（updatetime updateuser createtime createuser）
         if (operationType==OperationType.INSERT){
-            // 插入字段需要为create和update的四个字段都赋值, 参数1为获取的entity的赋值方法的方法名(已在常量类里定义好) 参数2为方法的参数类型
-            Method setCreateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
-            Method setCreateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_USER, Long.class);
-            Method setUpdateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
-            Method setUpdateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
-
-            // 通过反射为对象属性赋值
-            setCreateTime.invoke(entity,now);
-            setCreateUser.invoke(entity,currentID);
-            setUpdateTime.invoke(entity,now);
-            setUpdateUser.invoke(entity,currentID);
-
+            // 插入字段需要为create和update的四个字段都赋值
+            invoke(setters.setCreateTime, entity, now);
+            invoke(setters.setCreateUser, entity, currentID);
+            invoke(setters.setUpdateTime, entity, now);
+            invoke(setters.setUpdateUser, entity, currentID);
         }else if (operationType==OperationType.UPDATE){
             // 更新字段只需要为update字段赋值
-            Method setUpdateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
-            Method setUpdateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
+            invoke(setters.setUpdateTime, entity, now);
+            invoke(setters.setUpdateUser, entity, currentID);
+        }
+        return setters;
+    }
+
+    private static void invoke(MethodHandle setter, Object entity, Object value) throws Throwable {
+        if (setter != null) {
+            setter.invokeExact(entity, value);
+        }
+    }
+
+    /**
+     * 某个实体类的四个公共字段setter，统一适配成 (Object, Object)void 以便invokeExact调用
+     */
+    private static final class FillSetters {
+
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final Class<?> entityClass;
+        private final MethodHandle setCreateTime;
+        private final MethodHandle setCreateUser;
+        private final MethodHandle setUpdateTime;
+        private final MethodHandle setUpdateUser;
+
+        private FillSetters(Class<?> entityClass) {
+            this.entityClass = entityClass;
+            setCreateTime = find(entityClass, AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
+            setCreateUser = find(entityClass, AutoFillConstant.SET_CREATE_USER, Long.class);
+            setUpdateTime = find(entityClass, AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
+            setUpdateUser = find(entityClass, AutoFillConstant.SET_UPDATE_USER, Long.class);
+            log.debug("已为{}生成公共字段填充setter", entityClass.getName());
+        }
 
-            // 通过反射为对象属性赋值
-            setUpdateTime.invoke(entity,now);
-            setUpdateUser.invoke(entity,currentID);
+        private static MethodHandle find(Class<?> entityClass, String name, Class<?> parameterType) {
+            try {
+                // getMethod能查到父类继承下来的public方法，getDeclaredMethod只能查到本类声明的
+                Method method = entityClass.getMethod(name, parameterType);
+                return MethodHandles.publicLookup().unreflect(method).asType(SETTER_TYPE);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                log.debug("{}没有可用的{}方法，跳过该字段的自动填充", entityClass.getName(), name);
+                return null;
+            }
         }
     }
 }
@@ -0,0 +1,24 @@
+package com.sky.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 缓存失效时机工具类
+ * 处在事务中时推迟到事务提交之后再执行，避免其他线程在提交前把旧数据重新读进缓存；不在事务中时立即执行
+ */
+public class AfterCommit {
+
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
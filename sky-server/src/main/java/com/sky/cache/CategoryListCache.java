@@ -0,0 +1,119 @@
+package com.sky.cache;
+
+import com.sky.entity.Category;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 按类型查询分类的进程内缓存
+ * 每个类型（包括type为null的“全部”）缓存一份排好序的不可变列表快照，分类有任何修改时整体失效；
+ * 读线程拿到的永远是某一次完整查询的结果，不会看到修改到一半的列表
+ */
+@Component
+@Slf4j
+public class CategoryListCache {
+
+    // type为null时使用的key
+    private static final String ALL = "all";
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    // 每次失效加一，查询前记下代数，写回时代数变了说明查询期间发生过修改，结果不再放进缓存
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer rebuildTimer;
+
+    /**
+     * 注册命中/未命中次数、命中率和重建耗时指标（/actuator/metrics/sky.category.cache.*）
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("sky.category.cache.hits", hits, LongAdder::sum)
+                .description("分类列表缓存命中次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("sky.category.cache.misses", misses, LongAdder::sum)
+                .description("分类列表缓存未命中次数")
+                .register(meterRegistry);
+        Gauge.builder("sky.category.cache.hit.ratio", this, CategoryListCache::hitRatio)
+                .description("分类列表缓存命中率")
+                .register(meterRegistry);
+        rebuildTimer = Timer.builder("sky.category.cache.rebuild")
+                .description("分类列表缓存重建耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 取某个类型的分类列表，未命中时调用loader查库并缓存
+     * @param type 分类类型，null表示全部
+     * @param loader 查库逻辑
+     * @return 不可变列表
+     */
+    public List<Category> get(Integer type, Supplier<List<Category>> loader) {
+        String key = type == null ? ALL : type.toString();
+        long current = generation.get();
+
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && snapshot.generation == current) {
+            hits.increment();
+            return snapshot.categories;
+        }
+        misses.increment();
+
+        long start = System.nanoTime();
+        List<Category> categories = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+        rebuildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        // 查询期间没有发生修改才写回，整份快照一次性替换
+        if (generation.get() == current) {
+            snapshots.put(key, new Snapshot(current, categories));
+        }
+        return categories;
+    }
+
+    /**
+     * 分类数据发生变化，所有类型的快照失效（在事务中则推迟到提交之后）
+     */
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            snapshots.clear();
+            log.debug("分类列表缓存失效");
+        });
+    }
+
+    private double hitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private static final class Snapshot {
+        private final long generation;
+        private final List<Category> categories;
+
+        private Snapshot(long generation, List<Category> categories) {
+            this.generation = generation;
+            this.categories = categories;
+        }
+    }
+}
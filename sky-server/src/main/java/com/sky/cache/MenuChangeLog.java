@@ -0,0 +1,118 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 菜单变更日志
+ * 分类、菜品（含口味）、套餐（含套餐菜品）的每次变更都会让全局版本号单调加一，并记录变更的是哪条数据，
+ * 客户端带着上次同步到的版本号来取增量。
+ *
+ * 日志只在本节点内存中，只包含经过本节点的变更，只适用于单节点部署（多实例部署时通过 sky.menu.incremental-sync=false 关闭增量同步）。
+ * 版本号高位是进程启动时随机生成的来源标识，低32位是序号：重启前或其他进程发出的版本号来源对不上，一律回退到全量同步
+ */
+@Component
+@Slf4j
+public class MenuChangeLog {
+
+    public static final String CATEGORY = "category";
+    public static final String DISH = "dish";
+    public static final String SETMEAL = "setmeal";
+
+    // 最多保留的变更条数，更早的变更被丢弃，版本号落在丢弃范围内的客户端需要全量同步
+    private static final int MAX_CHANGES = 10000;
+    // 序号占用的位数，来源标识占用其上的21位，版本号不超过2^53，前端JS可以精确表示
+    private static final int SEQUENCE_BITS = 32;
+    private static final int ORIGIN_BITS = 21;
+
+    private final ConcurrentNavigableMap<Long, Change> changes = new ConcurrentSkipListMap<>();
+    // 本进程的来源标识，不为0
+    private final long origin = ThreadLocalRandom.current().nextLong(1, 1L << ORIGIN_BITS);
+    private long lastVersion = origin << SEQUENCE_BITS;
+    // changes里的条数（ConcurrentSkipListMap.size()需要遍历，这里自己计数，只在append里修改）
+    private int size;
+    // 已经完整写入changes的最大版本号，读操作只看到这个版本为止
+    private volatile long publishedVersion = lastVersion;
+    // 小于等于这个版本号的变更已经不全了
+    private volatile long floorVersion = lastVersion;
+
+    /**
+     * 当前版本号
+     * @return
+     */
+    public long currentVersion() {
+        return publishedVersion;
+    }
+
+    /**
+     * 记录一批变更（在事务中则推迟到提交之后）
+     * @param type 数据类型，见本类常量
+     * @param ids 发生变更的数据id
+     */
+    public void record(String type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> append(type, ids));
+    }
+
+    /**
+     * 查询某个版本之后（不含）到当前版本为止的变更
+     * @param sinceVersion 客户端上次同步到的版本号
+     * @param untilVersion 当前版本号，由currentVersion()取得
+     * @return 按类型分组的变更id；版本号不是本进程发出的、客户端版本太旧、变更已经不全时返回null，需要全量同步
+     */
+    public Map<String, Set<Long>> changesBetween(long sinceVersion, long untilVersion) {
+        if (sinceVersion >>> SEQUENCE_BITS != origin) {
+            return null;
+        }
+        if (sinceVersion < floorVersion || sinceVersion > untilVersion) {
+            return null;
+        }
+        Map<String, Set<Long>> changed = new HashMap<>();
+        for (Change change : changes.subMap(sinceVersion, false, untilVersion, true).values()) {
+            changed.computeIfAbsent(change.type, key -> new HashSet<>()).add(change.id);
+        }
+        // 读的过程中旧变更被裁剪掉了，结果可能不全
+        if (sinceVersion < floorVersion) {
+            return null;
+        }
+        return changed;
+    }
+
+    private synchronized void append(String type, Collection<Long> ids) {
+        for (Long id : ids) {
+            if (id != null) {
+                changes.put(++lastVersion, new Change(type, id));
+                size++;
+            }
+        }
+        publishedVersion = lastVersion;
+
+        while (size > MAX_CHANGES) {
+            Map.Entry<Long, Change> oldest = changes.pollFirstEntry();
+            size--;
+            floorVersion = oldest.getKey();
+        }
+        log.debug("菜单变更：{} {}，当前版本号：{}", type, ids, lastVersion);
+    }
+
+    private static final class Change {
+        private final String type;
+        private final Long id;
+
+        private Change(String type, Long id) {
+            this.type = type;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.sky.cache;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.vo.OrderStatisticsVO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 各状态订单数量的内存计数
+ * 订单每次状态流转（事务提交后）增减对应状态的计数，管理端订单统计直接读内存，不再执行count查询；
+ * 定时与数据库对账，纠正进程重启、漏记等原因造成的偏差
+ *
+ * 某个状态的数量 = 对账时的基数 + 累计变化量：状态流转只累加变化量，对账只重写基数，
+ * 对账期间发生的流转不会被对账结果覆盖
+ *
+ * 计数只在本节点内存中：多实例部署时，只有本节点处理的下单和状态流转会立即反映出来，
+ * 其他节点上发生的（包括持有调度租约的节点执行的超时取消、自动完成）要等下一次对账才能看到，
+ * 因此各节点返回的统计最多滞后 sky.order.statistics-reconcile-seconds 秒，需要更及时时应调小对账间隔
+ */
+@Component
+@Slf4j
+public class OrderStatusCounter {
+
+    // 管理端订单统计关心的状态
+    private static final Integer[] TRACKED = {Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS};
+
+    // 按状态值下标存放
+    private final AtomicLongArray base = new AtomicLongArray(Orders.CANCELLED + 1);
+    private final AtomicLongArray changes = new AtomicLongArray(Orders.CANCELLED + 1);
+    private final LongAdder drift = new LongAdder();
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 启动时先对账一次，并注册各状态数量和对账偏差指标（/actuator/metrics/sky.order.status.*）
+     */
+    @PostConstruct
+    public void init() {
+        for (Integer status : TRACKED) {
+            Gauge.builder("sky.order.status.count", this, counter -> counter.count(status))
+                    .tag("status", status.toString())
+                    .description("各状态订单数量")
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("sky.order.status.drift", drift, LongAdder::sum)
+                .description("对账时纠正的订单数量偏差累计值")
+                .register(meterRegistry);
+        reconcile();
+    }
+
+    /**
+     * 新订单创建（在事务中则推迟到提交之后）
+     * @param status 订单初始状态
+     */
+    public void onCreated(Integer status) {
+        AfterCommit.run(() -> add(status, 1));
+    }
+
+    /**
+     * 订单状态流转（在事务中则推迟到提交之后）
+     * @param fromStatus 原状态
+     * @param toStatus   新状态
+     * @param count      实际流转的订单数，一般取update语句的影响行数
+     */
+    public void onTransition(Integer fromStatus, Integer toStatus, int count) {
+        if (count <= 0) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            add(fromStatus, -count);
+            add(toStatus, count);
+        });
+    }
+
+    /**
+     * 当前的订单统计
+     * @return
+     */
+    public OrderStatisticsVO statistics() {
+        OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO();
+        orderStatisticsVO.setToBeConfirmed((int) count(Orders.TO_BE_CONFIRMED));
+        orderStatisticsVO.setConfirmed((int) count(Orders.CONFIRMED));
+        orderStatisticsVO.setDeliveryInProgress((int) count(Orders.DELIVERY_IN_PROGRESS));
+        return orderStatisticsVO;
+    }
+
+    /**
+     * 与数据库对账：先记下当前变化量再查库，基数 = 查库结果 - 查库前的变化量，
+     * 查库期间及之后的流转仍然叠加在基数上
+     */
+    @Scheduled(initialDelayString = "#{${sky.order.statistics-reconcile-seconds:60} * 1000}",
+            fixedDelayString = "#{${sky.order.statistics-reconcile-seconds:60} * 1000}")
+    public synchronized void reconcile() {
+        for (Integer status : TRACKED) {
+            long before = changes.get(status);
+            long expected = base.get(status) + before;
+            long actual = orderMapper.countStatus(status);
+            base.set(status, actual - before);
+            if (actual != expected) {
+                drift.add(Math.abs(actual - expected));
+                log.info("订单状态{}计数与数据库不一致，内存：{}，数据库：{}，已纠正", status, expected, actual);
+            }
+        }
+    }
+
+    private long count(Integer status) {
+        return Math.max(0, base.get(status) + changes.get(status));
+    }
+
+    private void add(Integer status, int delta) {
+        if (status != null && status > 0 && status < changes.length()) {
+            changes.addAndGet(status, delta);
+        }
+    }
+}
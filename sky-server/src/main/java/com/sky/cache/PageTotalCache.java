@@ -0,0 +1,116 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分页总数缓存
+ * 按 表名 + 规范化后的查询条件 缓存count(*)结果，表数据新增、删除、修改（含状态变化）时整表失效，
+ * 另外每条缓存最多存活 TTL_MILLIS，兜底绕过本服务直接改库的情况
+ */
+@Component
+@Slf4j
+public class PageTotalCache {
+
+    public static final String EMPLOYEE = "employee";
+    public static final String CATEGORY = "category";
+
+    private static final long TTL_MILLIS = 60 * 1000;
+    // 每张表最多缓存的查询条件个数，超过后清空重新累积
+    private static final int MAX_FILTERS_PER_TABLE = 1000;
+
+    private final Map<String, TableTotals> tables = new ConcurrentHashMap<>();
+
+    /**
+     * 把查询条件规范化成缓存key：去掉首尾空格、统一小写（like查询本身不区分大小写）
+     * @param conditions 查询条件，null和空串视为同一个条件
+     * @return
+     */
+    public static String filterKey(Object... conditions) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (Object condition : conditions) {
+            String value = condition == null ? "" : condition.toString().trim().toLowerCase();
+            stringBuilder.append(value.length()).append(':').append(value).append('|');
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * 当前代数，统计前先取出来，写回缓存时用来判断统计期间表是否被修改过
+     * @param table
+     * @return
+     */
+    public long generation(String table) {
+        return totalsOf(table).generation;
+    }
+
+    /**
+     * 查询缓存的总数
+     * @param table
+     * @param filterKey
+     * @return 未命中返回null
+     */
+    public Long get(String table, String filterKey) {
+        Entry entry = totalsOf(table).totals.get(filterKey);
+        if (entry == null || entry.expireAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return entry.total;
+    }
+
+    /**
+     * 写入总数，如果统计期间表已经失效过（代数变了）则丢弃，防止把旧总数写回去
+     * @param table
+     * @param filterKey
+     * @param total
+     * @param generation 统计前取到的代数
+     */
+    public void put(String table, String filterKey, long total, long generation) {
+        TableTotals totals = totalsOf(table);
+        if (totals.generation != generation) {
+            return;
+        }
+        if (totals.totals.size() >= MAX_FILTERS_PER_TABLE) {
+            totals.totals.clear();
+        }
+        totals.totals.put(filterKey, new Entry(total, System.currentTimeMillis() + TTL_MILLIS));
+    }
+
+    /**
+     * 表数据发生变化，该表所有查询条件的总数失效（在事务中则推迟到提交之后）
+     * @param table
+     */
+    public void invalidate(String table) {
+        AfterCommit.run(() -> {
+            // 换成新的一代，旧代上正在进行的统计结果会在put时被丢弃
+            tables.compute(table, (key, old) -> new TableTotals(old == null ? 1 : old.generation + 1));
+            log.debug("分页总数缓存失效：{}", table);
+        });
+    }
+
+    private TableTotals totalsOf(String table) {
+        return tables.computeIfAbsent(table, key -> new TableTotals(0));
+    }
+
+    private static final class TableTotals {
+        private final long generation;
+        private final Map<String, Entry> totals = new ConcurrentHashMap<>();
+
+        private TableTotals(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    private static final class Entry {
+        private final long total;
+        private final long expireAt;
+
+        private Entry(long total, long expireAt) {
+            this.total = total;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.sky.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 资源版本号（代数）
+ * 每类资源一个内存计数器，写操作成功后加一，用来生成ETag。
+ * 计数器只在本进程内有效：带上启动时间作为纪元，重启后旧ETag自然全部失效；
+ * 多实例部署时其他实例上的写操作不会反映到本实例的版本号上，需要配合会话粘滞或只在单实例上开启
+ */
+@Component
+public class ResourceVersions {
+
+    public static final String CATEGORY = "category";
+    public static final String EMPLOYEE = "employee";
+
+    private final long epoch = System.currentTimeMillis();
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 资源当前的ETag，格式："资源名-纪元-版本号"
+     * @param resource
+     * @return
+     */
+    public String etag(String resource) {
+        return "\"" + resource + "-" + Long.toString(epoch, 36) + "-" + versionOf(resource).get() + "\"";
+    }
+
+    /**
+     * 资源发生变化，版本号加一（在事务中则推迟到提交之后）
+     * @param resource
+     */
+    public void bump(String resource) {
+        AfterCommit.run(() -> versionOf(resource).incrementAndGet());
+    }
+
+    private AtomicLong versionOf(String resource) {
+        return versions.computeIfAbsent(resource, key -> new AtomicLong());
+    }
+}
@@ -0,0 +1,183 @@
+package com.sky.cache;
+
+import com.sky.constant.StatusConstant;
+import com.sky.entity.SetmealDish;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealDishMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 套餐-菜品依赖索引
+ * 启动时从setmeal_dish表加载 菜品id→包含它的套餐id 的反向索引、套餐id→菜品id 的正向索引，以及停售菜品的集合；
+ * 停售菜品时级联停售套餐、启售套餐前检查是否包含停售菜品都直接查索引，不再逐个套餐查库或联表查询。
+ * 索引里的集合都是不可变的，修改时整体替换；所有修改都在事务提交之后进行，回滚的修改不会进入索引。
+ * 索引只直接反映本节点经手的变更，多实例部署时其他节点上的变更靠定时全量对账（sky.menu.setmeal-index-reconcile-seconds）补上，
+ * 即停售菜品级联停售套餐、启售套餐的检查在其他节点上最多滞后一个对账间隔
+ */
+@Component
+@Slf4j
+public class SetmealDishIndex {
+
+    private final Map<Long, Set<Long>> setmealIdsByDishId = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> dishIdsBySetmealId = new ConcurrentHashMap<>();
+    private final Set<Long> disabledDishIds = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private SetmealDishMapper setmealDishMapper;
+    @Autowired
+    private DishMapper dishMapper;
+
+    /**
+     * 全量加载，启动时执行一次，之后定时与数据库对账；
+     * 先在局部变量里建好再覆盖进索引，加载过程中读到的要么是旧数据要么是新数据，不会读到空索引。
+     * 各变更回调也在本对象上加锁，加载期间提交的变更排在加载之后应用，不会被加载结果覆盖
+     */
+    @PostConstruct
+    @Scheduled(initialDelayString = "#{${sky.menu.setmeal-index-reconcile-seconds:60} * 1000}",
+            fixedDelayString = "#{${sky.menu.setmeal-index-reconcile-seconds:60} * 1000}")
+    public synchronized void load() {
+        Map<Long, Set<Long>> dishIds = new HashMap<>();
+        Map<Long, Set<Long>> setmealIds = new HashMap<>();
+        for (SetmealDish setmealDish : setmealDishMapper.listAll()) {
+            dishIds.computeIfAbsent(setmealDish.getSetmealId(), key -> new HashSet<>()).add(setmealDish.getDishId());
+            setmealIds.computeIfAbsent(setmealDish.getDishId(), key -> new HashSet<>()).add(setmealDish.getSetmealId());
+        }
+        replaceAll(dishIdsBySetmealId, dishIds);
+        replaceAll(setmealIdsByDishId, setmealIds);
+
+        //先加后删：加载过程中宁可多认为一个菜品停售，也不漏掉
+        Set<Long> disabled = new HashSet<>(dishMapper.getIdsByStatus(StatusConstant.DISABLE));
+        disabledDishIds.addAll(disabled);
+        disabledDishIds.retainAll(disabled);
+        log.debug("套餐-菜品依赖索引加载完成，套餐数：{}，停售菜品数：{}", dishIdsBySetmealId.size(), disabledDishIds.size());
+    }
+
+    /**
+     * 包含某个菜品的套餐id
+     * @param dishId
+     * @return 不可变集合
+     */
+    public Set<Long> getSetmealIdsByDishId(Long dishId) {
+        return setmealIdsByDishId.getOrDefault(dishId, Collections.emptySet());
+    }
+
+    /**
+     * 套餐是否包含停售的菜品
+     * @param setmealId
+     * @return
+     */
+    public boolean containsDisabledDish(Long setmealId) {
+        for (Long dishId : dishIdsBySetmealId.getOrDefault(setmealId, Collections.emptySet())) {
+            if (disabledDishIds.contains(dishId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 菜品起售、停售（在事务中则推迟到提交之后）
+     * @param dishId
+     * @param status
+     */
+    public void onDishStatusChanged(Long dishId, Integer status) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                if (StatusConstant.DISABLE.equals(status)) {
+                    disabledDishIds.add(dishId);
+                } else {
+                    disabledDishIds.remove(dishId);
+                }
+            }
+        });
+    }
+
+    /**
+     * 菜品被删除（在事务中则推迟到提交之后）
+     * @param dishIds
+     */
+    public void onDishesDeleted(Collection<Long> dishIds) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                disabledDishIds.removeAll(dishIds);
+            }
+        });
+    }
+
+    /**
+     * 套餐新增或修改了包含的菜品（在事务中则推迟到提交之后）
+     * @param setmealId
+     * @param dishIds 套餐现在包含的全部菜品id
+     */
+    public void onSetmealDishesChanged(Long setmealId, Collection<Long> dishIds) {
+        Set<Long> ids = new HashSet<>(dishIds);
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                removeSetmeal(setmealId);
+                putSetmeal(setmealId, ids);
+            }
+        });
+    }
+
+    /**
+     * 套餐被删除（在事务中则推迟到提交之后）
+     * @param setmealIds
+     */
+    public void onSetmealsDeleted(Collection<Long> setmealIds) {
+        Set<Long> ids = new HashSet<>(setmealIds);
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                for (Long setmealId : ids) {
+                    removeSetmeal(setmealId);
+                }
+            }
+        });
+    }
+
+    private static void replaceAll(Map<Long, Set<Long>> index, Map<Long, Set<Long>> loaded) {
+        for (Map.Entry<Long, Set<Long>> entry : loaded.entrySet()) {
+            index.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+        }
+        index.keySet().retainAll(loaded.keySet());
+    }
+
+    private void putSetmeal(Long setmealId, Set<Long> dishIds) {
+        if (dishIds.isEmpty()) {
+            return;
+        }
+        dishIdsBySetmealId.put(setmealId, Collections.unmodifiableSet(new HashSet<>(dishIds)));
+        for (Long dishId : dishIds) {
+            Set<Long> setmealIds = new HashSet<>(getSetmealIdsByDishId(dishId));
+            setmealIds.add(setmealId);
+            setmealIdsByDishId.put(dishId, Collections.unmodifiableSet(setmealIds));
+        }
+    }
+
+    private void removeSetmeal(Long setmealId) {
+        Set<Long> dishIds = dishIdsBySetmealId.remove(setmealId);
+        if (dishIds == null) {
+            return;
+        }
+        for (Long dishId : dishIds) {
+            Set<Long> setmealIds = new HashSet<>(getSetmealIdsByDishId(dishId));
+            setmealIds.remove(setmealId);
+            if (setmealIds.isEmpty()) {
+                setmealIdsByDishId.remove(dishId);
+            } else {
+                setmealIdsByDishId.put(dishId, Collections.unmodifiableSet(setmealIds));
+            }
+        }
+    }
+}
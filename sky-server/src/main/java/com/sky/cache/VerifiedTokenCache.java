@@ -0,0 +1,150 @@
+package com.sky.cache;
+
+import com.sky.properties.JwtProperties;
+import com.sky.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已校验jwt令牌缓存
+ * 以 秘钥+令牌 的SHA-256摘要为key缓存验签通过后的Claims，命中时跳过解析和HS256验签；
+ * 每条缓存的过期时间取 配置的最长缓存时间 和 令牌自身exp 中较早的一个，保证不会比令牌活得更久
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+    // MessageDigest不是线程安全的，每个线程复用一个实例
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    private JwtProperties jwtProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 注册命中/未命中次数和当前缓存条数指标（/actuator/metrics/sky.jwt.cache.*）
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("sky.jwt.cache.hits", hits, LongAdder::sum)
+                .description("已校验令牌缓存命中次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("sky.jwt.cache.misses", misses, LongAdder::sum)
+                .description("已校验令牌缓存未命中次数")
+                .register(meterRegistry);
+        Gauge.builder("sky.jwt.cache.size", cache, Map::size)
+                .description("已校验令牌缓存条数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 校验令牌并返回Claims，命中缓存时不再解析和验签
+     * 令牌非法或已过期时与 JwtUtil.parseJWT 一样抛出异常
+     *
+     * @param secretKey jwt秘钥
+     * @param token     令牌
+     * @return
+     */
+    public Claims parse(String secretKey, String token) {
+        if (token == null) {
+            // 交给JwtUtil抛出统一的异常
+            return JwtUtil.parseJWT(secretKey, token);
+        }
+
+        String key = digest(secretKey, token);
+        long now = System.currentTimeMillis();
+
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            if (entry.expireAt > now) {
+                hits.increment();
+                return entry.claims;
+            }
+            cache.remove(key, entry);
+        }
+        misses.increment();
+
+        // 未命中：完整解析并验签，失败直接抛出，不会进入缓存
+        Claims claims = JwtUtil.parseJWT(secretKey, token);
+
+        long expireAt = now + jwtProperties.getAdminTokenCacheSeconds() * 1000;
+        Date exp = claims.getExpiration();
+        if (exp != null) {
+            expireAt = Math.min(expireAt, exp.getTime());
+        }
+        if (cache.size() >= jwtProperties.getAdminTokenCacheSize()) {
+            evict(now);
+        }
+        cache.put(key, new Entry(claims, expireAt));
+        return claims;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 缓存已满时先清理过期条目，仍然超过上限的90%则继续淘汰任意条目，避免每次写入都触发全量扫描
+     */
+    private void evict(long now) {
+        cache.entrySet().removeIf(e -> e.getValue().expireAt <= now);
+
+        int target = jwtProperties.getAdminTokenCacheSize() * 9 / 10;
+        Iterator<String> iterator = cache.keySet().iterator();
+        while (cache.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        log.debug("已校验令牌缓存淘汰完成，当前条数：{}", cache.size());
+    }
+
+    private String digest(String secretKey, String token) {
+        MessageDigest md = SHA256.get();
+        md.reset();
+        md.update(secretKey.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) '.');
+        md.update(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(md.digest());
+    }
+
+    private static final class Entry {
+        private final Claims claims;
+        private final long expireAt;
+
+        private Entry(Claims claims, long expireAt) {
+            this.claims = claims;
+            this.expireAt = expireAt;
+        }
+    }
+}
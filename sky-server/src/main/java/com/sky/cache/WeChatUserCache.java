@@ -0,0 +1,142 @@
+package com.sky.cache;
+
+import com.sky.entity.User;
+import com.sky.properties.WeChatProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 微信登录用户缓存
+ * 以openid为key短时间缓存登录过的用户（只有id和openid），重复登录不再查库；同一openid的并发登录合并成一次查库/建用户，
+ * 其余请求等待同一个结果
+ */
+@Component
+@Slf4j
+public class WeChatUserCache {
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    // 正在加载中的openid，同一openid的并发请求共用一个future
+    private final Map<String, CompletableFuture<User>> loading = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    @Autowired
+    private WeChatProperties weChatProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 注册命中/未命中/合并次数和缓存条数指标（/actuator/metrics/sky.wechat.user.cache.*）
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("sky.wechat.user.cache.hits", hits, LongAdder::sum)
+                .description("微信登录用户缓存命中次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("sky.wechat.user.cache.misses", misses, LongAdder::sum)
+                .description("微信登录用户缓存未命中次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("sky.wechat.user.cache.coalesced", coalesced, LongAdder::sum)
+                .description("被合并的并发登录次数")
+                .register(meterRegistry);
+        Gauge.builder("sky.wechat.user.cache.size", cache, Map::size)
+                .description("微信登录用户缓存条数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 取openid对应的用户，未命中时调用loader（查库或创建用户）并缓存
+     * @param openid
+     * @param loader loader抛出的异常原样抛给所有等待的请求
+     * @return
+     */
+    public User get(String openid, Function<String, User> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(openid);
+        if (entry != null) {
+            if (entry.expireAt > now) {
+                hits.increment();
+                return entry.user;
+            }
+            cache.remove(openid, entry);
+        }
+        misses.increment();
+
+        CompletableFuture<User> future = new CompletableFuture<>();
+        CompletableFuture<User> existing = loading.putIfAbsent(openid, future);
+        if (existing != null) {
+            // 已有请求在加载同一个openid，等它的结果
+            coalesced.increment();
+            return join(existing);
+        }
+
+        try {
+            User user = loader.apply(openid);
+            put(openid, user, now);
+            future.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(openid, future);
+        }
+    }
+
+    private void put(String openid, User user, long now) {
+        if (cache.size() >= weChatProperties.getUserCacheSize()) {
+            evict(now);
+        }
+        cache.put(openid, new Entry(user, now + weChatProperties.getUserCacheSeconds() * 1000));
+    }
+
+    /**
+     * 缓存已满时先清理过期条目，仍然超过上限的90%则继续淘汰任意条目
+     */
+    private void evict(long now) {
+        cache.entrySet().removeIf(e -> e.getValue().expireAt <= now);
+
+        int target = weChatProperties.getUserCacheSize() * 9 / 10;
+        Iterator<String> iterator = cache.keySet().iterator();
+        while (cache.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        log.debug("微信登录用户缓存淘汰完成，当前条数：{}", cache.size());
+    }
+
+    private static User join(CompletableFuture<User> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+        private final User user;
+        private final long expireAt;
+
+        private Entry(User user, long expireAt) {
+            this.user = user;
+            this.expireAt = expireAt;
+        }
+    }
+}
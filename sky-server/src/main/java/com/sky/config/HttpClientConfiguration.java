@@ -0,0 +1,47 @@
+package com.sky.config;
+
+import com.sky.utils.HttpClientUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.function.ToIntFunction;
+
+/**
+ * 配置类，暴露HttpClientUtil连接池指标（/actuator/metrics/sky.http.pool.*），应用关闭时释放连接池
+ */
+@Configuration
+@Slf4j
+public class HttpClientConfiguration {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void registerMetrics() {
+        registerPoolGauge("sky.http.pool.leased", "已借出的连接数", PoolStats::getLeased);
+        registerPoolGauge("sky.http.pool.available", "空闲的连接数", PoolStats::getAvailable);
+        registerPoolGauge("sky.http.pool.pending", "等待获取连接的请求数", PoolStats::getPending);
+        registerPoolGauge("sky.http.pool.max", "连接数上限", PoolStats::getMax);
+        Gauge.builder("sky.http.async.queue", HttpClientUtil::getAsyncQueueSize)
+                .description("等待执行的异步请求数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("关闭HttpClient连接池");
+        HttpClientUtil.shutdown();
+    }
+
+    private void registerPoolGauge(String name, String description, ToIntFunction<PoolStats> value) {
+        Gauge.builder(name, () -> value.applyAsInt(HttpClientUtil.getPoolStats()))
+                .description(description)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,23 @@
+package com.sky.config;
+
+import com.sky.properties.IdProperties;
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 配置类，创建订单等实体使用的id生成器
+ */
+@Configuration
+@Slf4j
+public class IdGeneratorConfiguration {
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(IdProperties idProperties) {
+        log.info("开始创建id生成器：{}", idProperties);
+        return new SnowflakeIdGenerator(idProperties.getNodeId(),
+                idProperties.getEpoch(),
+                idProperties.getMaxBackwardMillis());
+    }
+}
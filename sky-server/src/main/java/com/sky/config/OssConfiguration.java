@@ -0,0 +1,49 @@
+package com.sky.config;
+
+import com.sky.properties.AliOssProperties;
+import com.sky.properties.StorageProperties;
+import com.sky.utils.AliOssUtil;
+import com.sky.utils.LocalFileStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 配置类，按 sky.storage.type 创建文件存储对象
+ */
+@Configuration
+@Slf4j
+public class OssConfiguration {
+
+    /**
+     * 阿里云OSS存储，整个应用共用一个客户端，应用关闭时释放
+     * @param aliOssProperties
+     * @return
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "sky.storage", name = "type", havingValue = StorageProperties.TYPE_ALIOSS, matchIfMissing = true)
+    public AliOssUtil aliOssUtil(AliOssProperties aliOssProperties) {
+        log.info("开始创建阿里云文件上传工具类对象：{}", aliOssProperties);
+        return new AliOssUtil(aliOssProperties.getEndpoint(),
+                aliOssProperties.getAccessKeyId(),
+                aliOssProperties.getAccessKeySecret(),
+                aliOssProperties.getBucketName(),
+                aliOssProperties.getMaxConnections(),
+                aliOssProperties.getMultipartThreshold(),
+                aliOssProperties.getPartSize(),
+                aliOssProperties.getUploadThreads());
+    }
+
+    /**
+     * 本地文件系统存储
+     * @param storageProperties
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "sky.storage", name = "type", havingValue = StorageProperties.TYPE_LOCAL)
+    public LocalFileStorage localFileStorage(StorageProperties storageProperties) {
+        log.info("开始创建本地文件存储对象：{}", storageProperties);
+        return new LocalFileStorage(storageProperties.getLocalDir(), storageProperties.getLocalUrlPrefix());
+    }
+}
@@ -1,16 +1,23 @@
 package com.sky.config;
 
+import com.sky.handler.LocalImageRequestHandler;
+import com.sky.interceptor.ETagInterceptor;
 import com.sky.interceptor.JwtTokenAdminInterceptor;
+import com.sky.interceptor.JwtTokenUserInterceptor;
 import com.sky.json.JacksonObjectMapper;
+import com.sky.properties.StorageProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 import springfox.documentation.builders.ApiInfoBuilder;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
@@ -18,6 +25,8 @@ import springfox.documentation.service.ApiInfo;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 
+import java.net.URI;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -29,6 +38,10 @@ public class WebMvcConfiguration extends WebMvcConfigurationSupport {
 
     @Autowired
     private JwtTokenAdminInterceptor jwtTokenAdminInterceptor;
+    @Autowired
+    private JwtTokenUserInterceptor jwtTokenUserInterceptor;
+    @Autowired
+    private ETagInterceptor eTagInterceptor;
 
     /**
      * 注册自定义拦截器
@@ -40,6 +53,13 @@ public class WebMvcConfiguration extends WebMvcConfigurationSupport {
         registry.addInterceptor(jwtTokenAdminInterceptor)
                 .addPathPatterns("/admin/**")
                 .excludePathPatterns("/admin/employee/login");
+        registry.addInterceptor(jwtTokenUserInterceptor)
+                .addPathPatterns("/user/**")
+                .excludePathPatterns("/user/user/login");
+        // 在jwt校验之后处理ETag，未登录的请求拿不到304
+        registry.addInterceptor(eTagInterceptor)
+                .addPathPatterns("/admin/**")
+                .excludePathPatterns("/admin/employee/login");
     }
 
     /**
@@ -71,6 +91,29 @@ public class WebMvcConfiguration extends WebMvcConfigurationSupport {
         registry.addResourceHandler("/webjars/**").addResourceLocations("classpath:/META-INF/resources/webjars/");
     }
 
+    /**
+     * 本地存储时的图片访问映射（例如 /images/**）
+     * 图片不走上面的ResourceHandlerRegistry：那里的ResourceHttpRequestHandler会把文件内容经堆内缓冲区拷贝输出，
+     * 这里交给支持sendfile的LocalImageRequestHandler；排在静态资源映射之前
+     * @param storageProperties
+     * @param localImageRequestHandler
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "sky.storage", name = "type", havingValue = StorageProperties.TYPE_LOCAL)
+    public SimpleUrlHandlerMapping localImageHandlerMapping(StorageProperties storageProperties,
+                                                            LocalImageRequestHandler localImageRequestHandler) {
+        String path = URI.create(storageProperties.getLocalUrlPrefix()).getPath();
+        if (!path.endsWith("/")) {
+            path = path + "/";
+        }
+        log.info("注册本地图片访问路径：{}**", path);
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(
+                Collections.singletonMap(path + "**", localImageRequestHandler));
+        mapping.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return mapping;
+    }
+
     /**
      * 扩展spring MVC框架诶的消息转换器 统一对日期进行格式化处理
      * @param [converters]
@@ -1,7 +1,10 @@
 package com.sky.controller.admin;
 
+import com.sky.annotation.ETagResource;
+import com.sky.cache.ResourceVersions;
 import com.sky.dto.CategoryDTO;
 import com.sky.dto.CategoryPageQueryDTO;
+import com.sky.dto.CategorySortDTO;
 import com.sky.entity.Category;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
@@ -19,6 +22,7 @@ import java.util.List;
 @RestController
 @RequestMapping("/admin/category")
 @Api(tags = "分类相关接口")
+@ETagResource(ResourceVersions.CATEGORY) // GET接口支持ETag/304，写接口成功后版本号加一
 @Slf4j
 public class CategoryController {
 
@@ -89,6 +93,33 @@ public class CategoryController {
         return Result.success();
     }
 
+    /**
+     * 批量修改分类排序
+     * @param categorySortDTOs
+     * @return
+     */
+    @PutMapping("/sort")
+    @ApiOperation("批量修改分类排序")
+    public Result<String> updateSortBatch(@RequestBody List<CategorySortDTO> categorySortDTOs){
+        log.info("批量修改分类排序：{}", categorySortDTOs);
+        categoryService.updateSortBatch(categorySortDTOs);
+        return Result.success();
+    }
+
+    /**
+     * 批量启用、禁用分类
+     * @param status
+     * @param ids
+     * @return
+     */
+    @PostMapping("/status/{status}/batch")
+    @ApiOperation("批量启用禁用分类")
+    public Result<String> startOrStopBatch(@PathVariable("status") Integer status, @RequestBody List<Long> ids){
+        log.info("批量启用禁用分类：{},{}", ids, status);
+        categoryService.startOrStopBatch(status, ids);
+        return Result.success();
+    }
+
     /**
      * 根据类型查询分类
      * @param type
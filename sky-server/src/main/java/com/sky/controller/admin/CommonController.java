@@ -0,0 +1,65 @@
+package com.sky.controller.admin;
+
+import com.sky.constant.MessageConstant;
+import com.sky.result.Result;
+import com.sky.service.ImageRenditionService;
+import com.sky.utils.FileStorage;
+import com.sky.utils.ImageRenditions;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * 通用接口
+ */
+@RestController
+@RequestMapping("/admin/common")
+@Api(tags = "通用接口")
+@Slf4j
+public class CommonController {
+
+    @Autowired
+    private FileStorage fileStorage;
+    @Autowired
+    private ImageRenditionService imageRenditionService;
+
+    /**
+     * 文件上传
+     * 直接把上传文件的输入流交给存储，不在内存里缓冲整个文件
+     * @param file
+     * @return
+     */
+    @PostMapping("/upload")
+    @ApiOperation("文件上传")
+    public Result<String> upload(MultipartFile file){
+        log.info("文件上传：{}，大小：{}", file.getOriginalFilename(), file.getSize());
+
+        //只接受图片扩展名：上传的文件会和接口同源对外访问，html、svg等类型会被浏览器当作页面执行
+        String originalFilename = file.getOriginalFilename();
+        if (!ImageRenditions.isAllowedImage(originalFilename)) {
+            log.warn("拒绝上传非图片文件：{}", originalFilename);
+            return Result.error(MessageConstant.UPLOAD_TYPE_NOT_ALLOWED);
+        }
+        //原始文件名的后缀，加上uuid作为新的文件名，避免重名覆盖
+        String objectName = UUID.randomUUID().toString() + "." + ImageRenditions.extensionOf(originalFilename);
+
+        try (InputStream inputStream = file.getInputStream()) {
+            String filePath = fileStorage.upload(inputStream, file.getSize(), objectName);
+            //缩略图在后台生成，不增加上传请求的耗时
+            imageRenditionService.generateAsync(objectName);
+            return Result.success(filePath);
+        } catch (IOException e) {
+            log.error("文件上传失败：{}", originalFilename, e);
+        }
+        return Result.error(MessageConstant.UPLOAD_FAILED);
+    }
+}
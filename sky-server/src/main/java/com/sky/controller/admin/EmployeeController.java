@@ -1,5 +1,7 @@
 package com.sky.controller.admin;
 
+import com.sky.annotation.ETagResource;
+import com.sky.cache.ResourceVersions;
 import com.sky.constant.JwtClaimsConstant;
 import com.sky.dto.EmployeeDTO;
 import com.sky.dto.EmployeeLoginDTO;
@@ -25,6 +27,7 @@ import java.util.Map;
 @SuppressWarnings("ALL")
 @RestController
 @RequestMapping("/admin/employee")
+@ETagResource(ResourceVersions.EMPLOYEE) // GET接口支持ETag/304，写接口成功后版本号加一
 @Slf4j
 public class EmployeeController {
 
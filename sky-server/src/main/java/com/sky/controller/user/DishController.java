@@ -0,0 +1,44 @@
+package com.sky.controller.user;
+
+import com.sky.constant.CategoryConstant;
+import com.sky.service.MenuSnapshotService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * C端菜品浏览
+ */
+@RestController("userDishController")
+@RequestMapping("/user/dish")
+@Api(tags = "C端-菜品浏览接口")
+@Slf4j
+public class DishController {
+
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+
+    /**
+     * 根据分类id查询菜品（带口味）
+     * 直接输出预先序列化好的菜单快照，返回格式与 Result<List<DishVO>> 相同
+     * @param categoryId
+     * @param response
+     */
+    @GetMapping(value = "/list", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("根据分类id查询菜品")
+    public void list(Long categoryId, HttpServletResponse response) throws IOException {
+        byte[] json = menuSnapshotService.getCategorySnapshot(CategoryConstant.DISH, categoryId);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(json.length);
+        response.getOutputStream().write(json);
+    }
+}
@@ -0,0 +1,37 @@
+package com.sky.controller.user;
+
+import com.sky.result.Result;
+import com.sky.service.MenuSyncService;
+import com.sky.vo.MenuDeltaVO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * C端菜单同步
+ */
+@RestController("userMenuController")
+@RequestMapping("/user/menu")
+@Api(tags = "C端-菜单同步接口")
+@Slf4j
+public class MenuController {
+
+    @Autowired
+    private MenuSyncService menuSyncService;
+
+    /**
+     * 菜单增量同步
+     * @param version 上次同步返回的版本号，第一次同步不传
+     * @return
+     */
+    @GetMapping("/delta")
+    @ApiOperation("菜单增量同步")
+    public Result<MenuDeltaVO> delta(Long version) {
+        log.info("菜单增量同步，客户端版本号：{}", version);
+        return Result.success(menuSyncService.delta(version));
+    }
+}
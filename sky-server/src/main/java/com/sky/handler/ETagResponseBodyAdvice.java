@@ -0,0 +1,42 @@
+package com.sky.handler;
+
+import com.sky.interceptor.ETagInterceptor;
+import com.sky.result.Result;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 在成功的响应上写出ETagInterceptor计算好的ETag，业务失败的响应不带ETag，避免客户端缓存错误结果
+ */
+@ControllerAdvice
+public class ETagResponseBodyAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest) || !(body instanceof Result)) {
+            return body;
+        }
+        Object etag = ((ServletServerHttpRequest) request).getServletRequest().getAttribute(ETagInterceptor.ETAG_ATTRIBUTE);
+        Integer code = ((Result<?>) body).getCode();
+        if (etag != null && code != null && code == 1) {
+            response.getHeaders().set(HttpHeaders.ETAG, etag.toString());
+            // 每次使用前都要回源校验，保证写操作之后客户端能及时拿到新数据
+            response.getHeaders().setCacheControl("no-cache");
+        }
+        return body;
+    }
+}
@@ -0,0 +1,95 @@
+package com.sky.interceptor;
+
+import com.sky.annotation.ETagResource;
+import com.sky.cache.ResourceVersions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * ETag拦截器，处理标注了@ETagResource的Controller
+ * GET：If-None-Match与资源当前版本一致时直接响应304，不再执行Controller、查库和序列化；
+ *      否则把当前版本记到请求属性里，由ETagResponseBodyAdvice在成功响应上写出ETag头
+ * 其他请求：执行成功后资源版本号加一
+ */
+@Component
+@Slf4j
+public class ETagInterceptor implements HandlerInterceptor {
+
+    /**
+     * 请求属性名：本次GET请求对应的ETag
+     */
+    public static final String ETAG_ATTRIBUTE = ETagInterceptor.class.getName() + ".etag";
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        String resource = resourceOf(handler);
+        if (resource == null || !isRead(request)) {
+            return true;
+        }
+
+        // 先取版本再查数据：查询期间如果发生写操作，版本号会变，客户端下次请求会拿到新数据
+        String etag = resourceVersions.etag(resource);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            return false;
+        }
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        String resource = resourceOf(handler);
+        if (resource == null || isRead(request)) {
+            return;
+        }
+        if (ex == null && response.getStatus() < 400) {
+            resourceVersions.bump(resource);
+        }
+    }
+
+    private String resourceOf(Object handler) {
+        //判断当前拦截到的是Controller的方法还是其他资源
+        if (!(handler instanceof HandlerMethod)) {
+            return null;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        ETagResource annotation = handlerMethod.getMethodAnnotation(ETagResource.class);
+        if (annotation == null) {
+            annotation = handlerMethod.getBeanType().getAnnotation(ETagResource.class);
+        }
+        return annotation == null ? null : annotation.value();
+    }
+
+    private boolean isRead(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+
+    /**
+     * If-None-Match可能是 * 或者逗号分隔的多个ETag，也可能带W/弱校验前缀
+     */
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || etag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
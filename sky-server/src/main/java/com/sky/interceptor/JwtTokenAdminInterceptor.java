@@ -1,9 +1,9 @@
 package com.sky.interceptor;
 
+import com.sky.cache.VerifiedTokenCache;
 import com.sky.constant.JwtClaimsConstant;
 import com.sky.context.BaseContext;
 import com.sky.properties.JwtProperties;
-import com.sky.utils.JwtUtil;
 import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +22,8 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
 
     @Autowired
     private JwtProperties jwtProperties;
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
 
     /**
      * 校验jwt
@@ -45,7 +47,8 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
         //2、校验令牌
         try {
             log.info("jwt校验:{}", token);
-            Claims claims = JwtUtil.parseJWT(jwtProperties.getAdminSecretKey(), token);
+            // 同一令牌验签通过后会被缓存，命中时跳过解析和验签
+            Claims claims = verifiedTokenCache.parse(jwtProperties.getAdminSecretKey(), token);
             Long empId = Long.valueOf(claims.get(JwtClaimsConstant.EMP_ID).toString());
             log.info("当前员工id：", empId);
             BaseContext.setCurrentId(empId);  //把ID存进BaseContext里面的ThreadLocal变量 使单次请求的线程全周期都可以使用 方便后续记录当前操作数据表的用户
@@ -0,0 +1,17 @@
+package com.sky.mapper;
+
+import com.sky.entity.AddressBook;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface AddressBookMapper {
+
+    /**
+     * 根据id查询地址
+     * @param id
+     * @return
+     */
+    @Select("select * from address_book where id = #{id}")
+    AddressBook getById(Long id);
+}
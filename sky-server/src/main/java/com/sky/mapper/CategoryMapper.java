@@ -4,10 +4,16 @@ import com.github.pagehelper.Page;
 import com.sky.annotation.AutoFill;
 import com.sky.enumeration.OperationType;
 import com.sky.dto.CategoryPageQueryDTO;
+import com.sky.dto.CategorySortDTO;
 import com.sky.entity.Category;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -30,6 +36,21 @@ public interface CategoryMapper {
      */
     Page<Category> pageQuery(CategoryPageQueryDTO categoryPageQueryDTO);
 
+    /**
+     * 游标分页查询 按sort asc, create_time desc, id desc排序，从游标位置直接定位，不使用offset
+     * @param categoryPageQueryDTO 查询条件
+     * @param sort 上一页最后一行的排序值，第一页传null
+     * @param createTime 上一页最后一行的创建时间，第一页传null
+     * @param id 上一页最后一行的id，第一页传null
+     * @param limit 本次最多查询的条数
+     * @return
+     */
+    List<Category> pageQueryByCursor(@Param("query") CategoryPageQueryDTO categoryPageQueryDTO,
+                                     @Param("sort") Integer sort,
+                                     @Param("createTime") LocalDateTime createTime,
+                                     @Param("id") Long id,
+                                     @Param("limit") int limit);
+
     /**
      * 根据id删除分类
      * @param id
@@ -37,6 +58,26 @@ public interface CategoryMapper {
     @Delete("delete from category where id = #{id}")
     void deleteById(Long id);
 
+    /**
+     * 分类没有被任何菜品、套餐引用时才删除，判断和删除在同一条语句里完成
+     * @param id
+     * @return 删除的行数，0表示被引用或分类不存在
+     */
+    @Delete("delete from category where id = #{id}" +
+            " and not exists (select 1 from dish where category_id = #{id})" +
+            " and not exists (select 1 from setmeal where category_id = #{id})")
+    int deleteByIdIfUnreferenced(Long id);
+
+    /**
+     * 查询分类被谁引用，一条语句内用exists短路判断
+     * @param id
+     * @return 1被菜品引用 2被套餐引用 0未被引用
+     */
+    @Select("select case when exists (select 1 from dish where category_id = #{id}) then 1" +
+            " when exists (select 1 from setmeal where category_id = #{id}) then 2" +
+            " else 0 end")
+    int getReferenceType(Long id);
+
     /**
      * 根据id修改分类
      * @param category
@@ -44,6 +85,37 @@ public interface CategoryMapper {
     @AutoFill(value = OperationType.UPDATE)
     void update(Category category);
 
+    /**
+     * 批量修改分类排序，一条case语句完成
+     * @param category 只用来承载自动填充的updateTime、updateUser，整批共用
+     * @param items 分类id和新的排序值
+     */
+    @AutoFill(value = OperationType.UPDATE)
+    void updateSortBatch(@Param("category") Category category, @Param("items") List<CategorySortDTO> items);
+
+    /**
+     * 批量启用、禁用分类
+     * @param category 承载目标status以及自动填充的updateTime、updateUser
+     * @param ids 分类id
+     */
+    @AutoFill(value = OperationType.UPDATE)
+    void updateStatusBatch(@Param("category") Category category, @Param("ids") List<Long> ids);
+
+    /**
+     * 根据id查询分类
+     * @param id
+     * @return
+     */
+    @Select("select * from category where id = #{id}")
+    Category getById(Long id);
+
+    /**
+     * 根据id批量查询分类
+     * @param ids
+     * @return
+     */
+    List<Category> getByIds(@Param("ids") Collection<Long> ids);
+
     /**
      * 根据类型查询分类
      * @param type
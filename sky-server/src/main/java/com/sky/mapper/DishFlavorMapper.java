@@ -0,0 +1,20 @@
+package com.sky.mapper;
+
+import com.sky.entity.DishFlavor;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface DishFlavorMapper {
+
+    /**
+     * 批量查询多个菜品的口味，一条in查询代替每个菜品查一次
+     * @param dishIds
+     * @return
+     */
+    List<DishFlavor> getByDishIds(@Param("dishIds") Collection<Long> dishIds);
+
+}
@@ -1,7 +1,18 @@
 package com.sky.mapper;
 
+import com.github.pagehelper.Page;
+import com.sky.annotation.AutoFill;
+import com.sky.dto.DishPageQueryDTO;
+import com.sky.entity.Dish;
+import com.sky.enumeration.OperationType;
+import com.sky.vo.DishVO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface DishMapper {
@@ -14,4 +25,49 @@ public interface DishMapper {
     @Select("select count(id) from dish where category_id = #{categoryId}")
     Integer countByCategoryId(Long categoryId);
 
+    /**
+     * 菜品分页查询（带分类名称，口味另外批量查询）
+     * @param dishPageQueryDTO
+     * @return
+     */
+    Page<DishVO> pageQuery(DishPageQueryDTO dishPageQueryDTO);
+
+    /**
+     * 条件查询菜品（按分类、状态、名称）
+     * @param dish
+     * @return
+     */
+    List<DishVO> listVO(Dish dish);
+
+    /**
+     * 根据id批量查询菜品（不限状态）
+     * @param ids
+     * @return
+     */
+    List<DishVO> listVOByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 根据id查询菜品
+     * @param id
+     * @return
+     */
+    @Select("select * from dish where id = #{id}")
+    Dish getById(Long id);
+
+    /**
+     * 查询某个状态的全部菜品id
+     * @param status
+     * @return
+     */
+    @Select("select id from dish where status = #{status}")
+    List<Long> getIdsByStatus(Integer status);
+
+    /**
+     * 修改菜品状态
+     * @param dish
+     */
+    @AutoFill(value = OperationType.UPDATE)
+    @Update("update dish set status = #{status}, update_time = #{updateTime}, update_user = #{updateUser} where id = #{id}")
+    void updateStatus(Dish dish);
+
 }
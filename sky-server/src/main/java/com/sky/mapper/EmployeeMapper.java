@@ -6,8 +6,12 @@ import com.sky.dto.EmployeePageQueryDTO;
 import com.sky.entity.Employee;
 import com.sky.enumeration.OperationType;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Mapper
 public interface EmployeeMapper {
 
@@ -45,6 +49,20 @@ public interface EmployeeMapper {
     Page<Employee> pageQuery(EmployeePageQueryDTO employeePageQueryDTO);
 
 
+    /**
+     * 游标分页查询 按create_time desc, id desc排序，从游标位置直接定位，不使用offset
+     * @param employeePageQueryDTO 查询条件
+     * @param createTime 上一页最后一行的创建时间，第一页传null
+     * @param id 上一页最后一行的id，第一页传null
+     * @param limit 本次最多查询的条数
+     * @return java.util.List<com.sky.entity.Employee>
+     */
+    List<Employee> pageQueryByCursor(@Param("query") EmployeePageQueryDTO employeePageQueryDTO,
+                                     @Param("createTime") LocalDateTime createTime,
+                                     @Param("id") Long id,
+                                     @Param("limit") int limit);
+
+
     /**
      * 根据ID动态修改SQL语句以update更新数据
      * @param [employee]
@@ -0,0 +1,54 @@
+package com.sky.mapper;
+
+import com.sky.entity.Orders;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface OrderMapper {
+
+    /**
+     * 插入订单数据，id由SnowflakeIdGenerator预先生成
+     * @param orders
+     */
+    void insert(Orders orders);
+
+    /**
+     * 根据id查询订单
+     * @param id
+     * @return
+     */
+    @Select("select * from orders where id = #{id}")
+    Orders getById(Long id);
+
+    /**
+     * 统计某个状态的订单数量
+     * @param status
+     * @return
+     */
+    @Select("select count(id) from orders where status = #{status}")
+    long countStatus(Integer status);
+
+    /**
+     * 查询某个状态的全部订单，只取计算超时时间需要的列，用于加载订单超时定时器
+     * @param status
+     * @return
+     */
+    @Select("select id, order_time, estimated_delivery_time, auto_complete_time from orders where status = #{status}")
+    List<Orders> listTimerByStatus(Integer status);
+
+    /**
+     * 批量把处于fromStatus的订单更新为orders中的状态，同时更新orders中不为空的取消原因、取消时间、送达时间、自动完成时间
+     * @param orders
+     * @param fromStatus
+     * @param ids
+     * @return 影响行数
+     */
+    int updateStatusByIds(@Param("orders") Orders orders, @Param("fromStatus") Integer fromStatus,
+                          @Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,38 @@
+package com.sky.mapper;
+
+import com.github.pagehelper.Page;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.entity.Orders;
+import com.sky.vo.OrderVO;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+@Mapper
+public interface OrderSearchMapper {
+
+    /**
+     * 新订单写入搜索读模型
+     * @param orders
+     * @param orderDishes 订单菜品摘要
+     */
+    @Insert("insert into order_search (id, number, status, user_id, order_time, amount, phone, consignee, address, order_dishes) " +
+            "values (#{orders.id}, #{orders.number}, #{orders.status}, #{orders.userId}, #{orders.orderTime}, #{orders.amount}, " +
+            "#{orders.phone}, #{orders.consignee}, #{orders.address}, #{orderDishes})")
+    void insert(@Param("orders") Orders orders, @Param("orderDishes") String orderDishes);
+
+    /**
+     * 从orders表同步订单的最新状态，重复执行结果不变
+     * @param ids
+     */
+    void syncStatusByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 订单条件搜索
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    Page<OrderVO> conditionSearch(OrdersPageQueryDTO ordersPageQueryDTO);
+}
@@ -0,0 +1,29 @@
+package com.sky.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+@Mapper
+public interface SchedulerLeaseMapper {
+
+    /**
+     * 获取或续期租约：租约无人持有、已过期或本来就属于owner时更新成功
+     * 到期时间使用数据库时间，不受各节点时钟差异影响
+     * @param name
+     * @param owner
+     * @param seconds 租约时长
+     * @return 影响行数，1表示当前持有租约
+     */
+    @Update("update scheduler_lease set owner = #{owner}, expire_at = date_add(now(), interval #{seconds} second) " +
+            "where name = #{name} and (owner = #{owner} or owner is null or expire_at < now())")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("seconds") long seconds);
+
+    /**
+     * 主动释放租约，其他节点不必等到过期即可接手
+     * @param name
+     * @param owner
+     */
+    @Update("update scheduler_lease set owner = null, expire_at = null where name = #{name} and owner = #{owner}")
+    void release(@Param("name") String name, @Param("owner") String owner);
+}
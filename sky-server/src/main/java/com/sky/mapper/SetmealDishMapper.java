@@ -0,0 +1,28 @@
+package com.sky.mapper;
+
+import com.sky.entity.SetmealDish;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface SetmealDishMapper {
+
+    /**
+     * 批量查询多个套餐包含的菜品，一条in查询代替每个套餐查一次
+     * @param setmealIds
+     * @return
+     */
+    List<SetmealDish> getBySetmealIds(@Param("setmealIds") Collection<Long> setmealIds);
+
+    /**
+     * 查询全部套餐和菜品的对应关系，启动时构建依赖索引用
+     * @return
+     */
+    @Select("select setmeal_id, dish_id from setmeal_dish")
+    List<SetmealDish> listAll();
+
+}
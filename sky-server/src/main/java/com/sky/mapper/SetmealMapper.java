@@ -1,7 +1,16 @@
 package com.sky.mapper;
 
+import com.sky.annotation.AutoFill;
+import com.sky.entity.Setmeal;
+import com.sky.enumeration.OperationType;
+import com.sky.vo.SetmealVO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface SetmealMapper {
@@ -14,4 +23,43 @@ public interface SetmealMapper {
     @Select("select count(id) from setmeal where category_id = #{categoryId}")
     Integer countByCategoryId(Long id);
 
+    /**
+     * 条件查询套餐（按分类、状态、名称）
+     * @param setmeal
+     * @return
+     */
+    List<SetmealVO> listVO(Setmeal setmeal);
+
+    /**
+     * 根据id批量查询套餐（不限状态）
+     * @param ids
+     * @return
+     */
+    List<SetmealVO> listVOByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 根据id查询套餐
+     * @param id
+     * @return
+     */
+    @Select("select * from setmeal where id = #{id}")
+    Setmeal getById(Long id);
+
+    /**
+     * 修改套餐状态
+     * @param setmeal
+     */
+    @AutoFill(value = OperationType.UPDATE)
+    @Update("update setmeal set status = #{status}, update_time = #{updateTime}, update_user = #{updateUser} where id = #{id}")
+    void updateStatus(Setmeal setmeal);
+
+    /**
+     * 批量修改套餐状态，只修改状态与目标不同的套餐
+     * @param setmeal 承载目标status以及自动填充的updateTime、updateUser
+     * @param ids 套餐id
+     * @return 实际修改的行数
+     */
+    @AutoFill(value = OperationType.UPDATE)
+    int updateStatusByIds(@Param("setmeal") Setmeal setmeal, @Param("ids") Collection<Long> ids);
+
 }
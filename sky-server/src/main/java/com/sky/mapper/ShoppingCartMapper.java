@@ -0,0 +1,29 @@
+package com.sky.mapper;
+
+import com.sky.entity.ShoppingCart;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface ShoppingCartMapper {
+
+    /**
+     * 查询用户购物车
+     * @param userId
+     * @return
+     */
+    @Select("select * from shopping_cart where user_id = #{userId}")
+    List<ShoppingCart> listByUserId(Long userId);
+
+    /**
+     * 删除用户购物车中的指定条目，一条语句完成
+     * @param userId
+     * @param ids 购物车条目id
+     * @return 实际删除的行数
+     */
+    int deleteByUserIdAndIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+}
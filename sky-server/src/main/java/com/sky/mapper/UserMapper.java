@@ -0,0 +1,20 @@
+package com.sky.mapper;
+
+import com.sky.entity.User;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+
+@Mapper
+public interface UserMapper {
+
+    /**
+     * 根据openid创建用户，已存在则不修改任何字段；一条语句完成，不需要先查询
+     * 依赖openid上的唯一索引，已存在时通过LAST_INSERT_ID(id)把已有用户的id回填到user.id
+     * @param user
+     */
+    @Insert("insert into user (openid, create_time) values (#{openid}, #{createTime}) " +
+            "on duplicate key update id = LAST_INSERT_ID(id)")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    void upsertByOpenid(User user);
+}
@@ -2,6 +2,7 @@ package com.sky.service;
 
 import com.sky.dto.CategoryDTO;
 import com.sky.dto.CategoryPageQueryDTO;
+import com.sky.dto.CategorySortDTO;
 import com.sky.entity.Category;
 import com.sky.result.PageResult;
 import java.util.List;
@@ -41,7 +42,20 @@ public interface CategoryService {
     void startOrStop(Integer status, Long id);
 
     /**
-     * 根据类型查询分类
+     * 批量修改分类排序
+     * @param categorySortDTOs
+     */
+    void updateSortBatch(List<CategorySortDTO> categorySortDTOs);
+
+    /**
+     * 批量启用、禁用分类
+     * @param status
+     * @param ids
+     */
+    void startOrStopBatch(Integer status, List<Long> ids);
+
+    /**
+     * 根据类型查询分类（走进程内缓存，返回的列表不可修改）
      * @param type
      * @return
      */
@@ -0,0 +1,39 @@
+package com.sky.service;
+
+import com.sky.dto.DishPageQueryDTO;
+import com.sky.result.PageResult;
+import com.sky.vo.DishVO;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DishService {
+
+    /**
+     * 菜品分页查询（带分类名称和口味）
+     * @param dishPageQueryDTO
+     * @return
+     */
+    PageResult pageQuery(DishPageQueryDTO dishPageQueryDTO);
+
+    /**
+     * 查询分类下起售中的菜品及其口味
+     * @param categoryId
+     * @return
+     */
+    List<DishVO> listWithFlavor(Long categoryId);
+
+    /**
+     * 根据id批量查询菜品及其口味（不限状态）
+     * @param ids
+     * @return
+     */
+    List<DishVO> listWithFlavorByIds(Collection<Long> ids);
+
+    /**
+     * 菜品起售、停售，停售时包含该菜品的套餐一并停售
+     * @param status
+     * @param id
+     */
+    void startOrStop(Integer status, Long id);
+}
@@ -0,0 +1,25 @@
+package com.sky.service;
+
+import java.util.function.Consumer;
+
+public interface ImageRenditionService {
+
+    /**
+     * 在后台线程池中为刚上传的图片生成缩略图，不阻塞调用方
+     * @param objectName 原图存储的文件名
+     */
+    void generateAsync(String objectName);
+
+    /**
+     * 图片对外展示用的缩略图地址：缩略图已确认存在时返回缩略图地址，否则返回原图地址并在后台补生成，不访问存储
+     * @param imageUrl 原图访问路径
+     * @return 原图为空时返回null
+     */
+    String thumbnailUrlOrImage(String imageUrl);
+
+    /**
+     * 登记缩略图就绪的回调，缩略图生成完成或在存储中找到已有缩略图时在生成线程上调用
+     * @param listener 参数为原图存储的文件名
+     */
+    void addReadyListener(Consumer<String> listener);
+}
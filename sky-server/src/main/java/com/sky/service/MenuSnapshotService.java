@@ -0,0 +1,28 @@
+package com.sky.service;
+
+import java.util.Collection;
+
+public interface MenuSnapshotService {
+
+    /**
+     * 获取某个分类的菜单快照：已经序列化好的 Result(菜品或套餐列表) UTF-8 JSON字节
+     * 菜品分类返回起售中的DishVO列表（带口味），套餐分类返回起售中的SetmealVO列表（带菜品）
+     * 返回的数组是共享的，调用方只能读不能改
+     * 分类id为空、分类不存在或类型与type不符时抛出CategoryNotFoundException
+     * @param type 分类类型，见CategoryConstant
+     * @param categoryId
+     * @return
+     */
+    byte[] getCategorySnapshot(Integer type, Long categoryId);
+
+    /**
+     * 分类、菜品、口味或套餐发生变化后重建受影响分类的快照（在事务中则推迟到提交之后）
+     * @param categoryIds 受影响的分类id
+     */
+    void refresh(Collection<Long> categoryIds);
+
+    /**
+     * 重建全部分类的快照
+     */
+    void refreshAll();
+}
@@ -0,0 +1,14 @@
+package com.sky.service;
+
+import com.sky.vo.MenuDeltaVO;
+
+public interface MenuSyncService {
+
+    /**
+     * 菜单增量同步：返回客户端版本号之后新增、修改和删除的分类、菜品、套餐
+     * 客户端第一次同步、版本号太旧或来自重启前时返回全量数据
+     * @param version 客户端上次同步到的版本号，第一次同步传null
+     * @return
+     */
+    MenuDeltaVO delta(Long version);
+}
@@ -0,0 +1,30 @@
+package com.sky.service;
+
+import com.sky.vo.SetmealVO;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SetmealService {
+
+    /**
+     * 查询分类下起售中的套餐及其包含的菜品
+     * @param categoryId
+     * @return
+     */
+    List<SetmealVO> listWithDishes(Long categoryId);
+
+    /**
+     * 根据id批量查询套餐及其包含的菜品（不限状态）
+     * @param ids
+     * @return
+     */
+    List<SetmealVO> listWithDishesByIds(Collection<Long> ids);
+
+    /**
+     * 套餐起售、停售
+     * @param status
+     * @param id
+     */
+    void startOrStop(Integer status, Long id);
+}
@@ -0,0 +1,14 @@
+package com.sky.service;
+
+import com.sky.dto.UserLoginDTO;
+import com.sky.entity.User;
+
+public interface UserService {
+
+    /**
+     * 微信登录
+     * @param userLoginDTO
+     * @return 只有id和openid的用户（结果会被缓存，不包含其他字段）
+     */
+    User wxLogin(UserLoginDTO userLoginDTO);
+}
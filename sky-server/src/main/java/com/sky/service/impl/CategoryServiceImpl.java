@@ -2,23 +2,32 @@ package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.cache.CategoryListCache;
+import com.sky.cache.MenuChangeLog;
+import com.sky.cache.PageTotalCache;
 import com.sky.constant.MessageConstant;
+import com.sky.constant.PageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.context.BaseContext;
 import com.sky.dto.CategoryDTO;
 import com.sky.dto.CategoryPageQueryDTO;
+import com.sky.dto.CategorySortDTO;
 import com.sky.entity.Category;
 import com.sky.exception.DeletionNotAllowedException;
 import com.sky.mapper.CategoryMapper;
-import com.sky.mapper.DishMapper;
-import com.sky.mapper.SetmealMapper;
 import com.sky.result.PageResult;
 import com.sky.service.CategoryService;
+import com.sky.service.MenuSnapshotService;
+import com.sky.utils.PageCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -28,12 +37,20 @@ import java.util.List;
 @Slf4j
 public class CategoryServiceImpl implements CategoryService {
 
+    //CategoryMapper.getReferenceType的返回值
+    private static final int REFERENCED_BY_DISH = 1;
+    private static final int REFERENCED_BY_SETMEAL = 2;
+
     @Autowired
     private CategoryMapper categoryMapper;
     @Autowired
-    private DishMapper dishMapper;
+    private PageTotalCache pageTotalCache;
+    @Autowired
+    private CategoryListCache categoryListCache;
     @Autowired
-    private SetmealMapper setmealMapper;
+    private MenuSnapshotService menuSnapshotService;
+    @Autowired
+    private MenuChangeLog menuChangeLog;
 
     /**
      * 新增分类
@@ -54,6 +71,7 @@ public class CategoryServiceImpl implements CategoryService {
 //        category.setUpdateUser(BaseContext.getCurrentId());
 
         categoryMapper.insert(category);
+        onCategoryChanged(Collections.emptyList());
     }
 
     /**
@@ -62,33 +80,124 @@ public class CategoryServiceImpl implements CategoryService {
      * @return
      */
     public PageResult pageQuery(CategoryPageQueryDTO categoryPageQueryDTO) {
-        PageHelper.startPage(categoryPageQueryDTO.getPage(),categoryPageQueryDTO.getPageSize());
+        //传了游标走游标分页，不传的老客户端继续走页码分页
+        if (categoryPageQueryDTO.getCursor() != null) {
+            return pageQueryByCursor(categoryPageQueryDTO);
+        }
+        //不需要总数的客户端：多查一条判断是否还有下一页，省掉count(*)
+        if (PageConstant.COUNT_MODE_HAS_NEXT.equals(categoryPageQueryDTO.getCountMode())) {
+            return pageQueryHasNext(categoryPageQueryDTO);
+        }
+
+        //缓存总数模式：同一查询条件的总数命中缓存时不再count(*)
+        boolean cacheTotal = PageConstant.COUNT_MODE_CACHED.equals(categoryPageQueryDTO.getCountMode());
+        String filterKey = null;
+        long generation = 0;
+        Long cachedTotal = null;
+        if (cacheTotal) {
+            filterKey = PageTotalCache.filterKey(categoryPageQueryDTO.getName(), categoryPageQueryDTO.getType());
+            generation = pageTotalCache.generation(PageTotalCache.CATEGORY);
+            cachedTotal = pageTotalCache.get(PageTotalCache.CATEGORY, filterKey);
+        }
+
+        PageHelper.startPage(categoryPageQueryDTO.getPage(),categoryPageQueryDTO.getPageSize(),cachedTotal == null);
         //下一条sql进行分页，自动加入limit关键字分页
         Page<Category> page = categoryMapper.pageQuery(categoryPageQueryDTO);
+        if (cachedTotal != null) {
+            PageResult pageResult = new PageResult(cachedTotal, page.getResult());
+            pageResult.setTotalMode(PageConstant.COUNT_MODE_CACHED);
+            return pageResult;
+        }
+        if (cacheTotal) {
+            pageTotalCache.put(PageTotalCache.CATEGORY, filterKey, page.getTotal(), generation);
+        }
         return new PageResult(page.getTotal(), page.getResult());
     }
 
+    /**
+     * 不统计总数的分页查询：按offset多查一条，用多出来的这条判断是否还有下一页
+     * @param categoryPageQueryDTO
+     * @return
+     */
+    private PageResult pageQueryHasNext(CategoryPageQueryDTO categoryPageQueryDTO) {
+        int pageSize = Math.max(categoryPageQueryDTO.getPageSize(), PageConstant.MIN_PAGE_SIZE);
+        int offset = Math.max(categoryPageQueryDTO.getPage() - 1, 0) * pageSize;
+        PageHelper.offsetPage(offset, pageSize + 1, false);
+        List<Category> records = categoryMapper.pageQuery(categoryPageQueryDTO);
+
+        boolean hasNext = records.size() > pageSize;
+        if (hasNext) {
+            records = new ArrayList<>(records.subList(0, pageSize));
+        }
+        PageResult pageResult = new PageResult(-1, records);
+        pageResult.setTotalMode(PageConstant.COUNT_MODE_HAS_NEXT);
+        pageResult.setHasNext(hasNext);
+        return pageResult;
+    }
+
+    /**
+     * 游标分页查询：根据上一页最后一行的(sort, create_time, id)直接定位，不做offset也不统计总数
+     * @param categoryPageQueryDTO
+     * @return
+     */
+    private PageResult pageQueryByCursor(CategoryPageQueryDTO categoryPageQueryDTO) {
+        Integer sort = null;
+        LocalDateTime createTime = null;
+        Long id = null;
+        if (!categoryPageQueryDTO.getCursor().isEmpty()) {
+            PageCursor cursor = PageCursor.decode(categoryPageQueryDTO.getCursor(), 3);
+            sort = cursor.getInteger(0);
+            createTime = cursor.getDateTime(1);
+            id = cursor.getLong(2);
+        }
+
+        //多查一条用来判断是否还有下一页
+        int pageSize = Math.max(categoryPageQueryDTO.getPageSize(), PageConstant.MIN_PAGE_SIZE);
+        List<Category> records = categoryMapper.pageQueryByCursor(categoryPageQueryDTO, sort, createTime, id, pageSize + 1);
+
+        PageResult pageResult = new PageResult(-1, records);
+        pageResult.setTotalMode(PageConstant.COUNT_MODE_CURSOR);
+        pageResult.setHasNext(records.size() > pageSize);
+        if (records.size() > pageSize) {
+            records = new ArrayList<>(records.subList(0, pageSize));
+            Category last = records.get(records.size() - 1);
+            pageResult.setRecords(records);
+            pageResult.setNextCursor(PageCursor.encode(last.getSort(), last.getCreateTime(), last.getId()));
+        }
+        return pageResult;
+    }
+
     /**
      * 根据id删除分类
+     * 是否被菜品、套餐引用的判断和删除在同一条语句里完成，不会出现判断之后、删除之前又关联了菜品的情况
      * @param id
      */
     public void deleteById(Long id) {
-        //查询当前分类是否关联了菜品，如果关联了就抛出业务异常
-        Integer count = dishMapper.countByCategoryId(id);
-        if(count > 0){
-            //当前分类下有菜品，不能删除
-            throw new DeletionNotAllowedException(MessageConstant.CATEGORY_BE_RELATED_BY_DISH);
+        if (tryDelete(id)) {
+            onCategoryChanged(Collections.singletonList(id));
+            return;
         }
 
-        //查询当前分类是否关联了套餐，如果关联了就抛出业务异常
-        count = setmealMapper.countByCategoryId(id);
-        if(count > 0){
+        //没有删掉：查询当前分类被谁引用了，抛出对应的业务异常
+        int referenceType = categoryMapper.getReferenceType(id);
+        if (referenceType == REFERENCED_BY_DISH) {
             //当前分类下有菜品，不能删除
+            throw new DeletionNotAllowedException(MessageConstant.CATEGORY_BE_RELATED_BY_DISH);
+        }
+        if (referenceType == REFERENCED_BY_SETMEAL) {
+            //当前分类下有套餐，不能删除
             throw new DeletionNotAllowedException(MessageConstant.CATEGORY_BE_RELATED_BY_SETMEAL);
         }
+        //实际没有被引用：分类本身不存在，无需处理
+    }
 
-        //删除分类数据
-        categoryMapper.deleteById(id);
+    /**
+     * 未被引用时删除分类
+     * @param id
+     * @return 是否删除成功
+     */
+    private boolean tryDelete(Long id) {
+        return categoryMapper.deleteByIdIfUnreferenced(id) > 0;
     }
 
     /**
@@ -104,6 +213,7 @@ public class CategoryServiceImpl implements CategoryService {
 //        category.setUpdateUser(BaseContext.getCurrentId());
 
         categoryMapper.update(category);
+        onCategoryChanged(Collections.singletonList(category.getId()));
     }
 
     /**
@@ -119,6 +229,43 @@ public class CategoryServiceImpl implements CategoryService {
 //                .updateUser(BaseContext.getCurrentId())
                 .build();
         categoryMapper.update(category);
+        onCategoryChanged(Collections.singletonList(id));
+    }
+
+    /**
+     * 批量修改分类排序：一个事务里一条update完成，修改时间和修改人整批只填充一次
+     * @param categorySortDTOs
+     */
+    @Transactional
+    public void updateSortBatch(List<CategorySortDTO> categorySortDTOs) {
+        if (categorySortDTOs == null || categorySortDTOs.isEmpty()) {
+            return;
+        }
+        categoryMapper.updateSortBatch(new Category(), categorySortDTOs);
+        //排序只影响分类列表，不影响各分类下的菜单内容
+        onCategoryChanged(Collections.emptyList());
+        List<Long> ids = new ArrayList<>();
+        for (CategorySortDTO categorySortDTO : categorySortDTOs) {
+            ids.add(categorySortDTO.getId());
+        }
+        menuChangeLog.record(MenuChangeLog.CATEGORY, ids);
+    }
+
+    /**
+     * 批量启用、禁用分类
+     * @param status
+     * @param ids
+     */
+    @Transactional
+    public void startOrStopBatch(Integer status, List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        Category category = Category.builder()
+                .status(status)
+                .build();
+        categoryMapper.updateStatusBatch(category, ids);
+        onCategoryChanged(ids);
     }
 
     /**
@@ -127,6 +274,20 @@ public class CategoryServiceImpl implements CategoryService {
      * @return
      */
     public List<Category> list(Integer type) {
-        return categoryMapper.list(type);
+        //分类很少变化，优先读进程内缓存的快照
+        return categoryListCache.get(type, () -> categoryMapper.list(type));
+    }
+
+    /**
+     * 分类数据发生变化后，让依赖分类数据的缓存失效
+     * @param categoryIds 状态或内容发生变化、需要重建菜单快照的分类
+     */
+    private void onCategoryChanged(Collection<Long> categoryIds) {
+        pageTotalCache.invalidate(PageTotalCache.CATEGORY);
+        categoryListCache.invalidate();
+        if (!categoryIds.isEmpty()) {
+            menuSnapshotService.refresh(categoryIds);
+            menuChangeLog.record(MenuChangeLog.CATEGORY, categoryIds);
+        }
     }
 }
@@ -0,0 +1,163 @@
+package com.sky.service.impl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.cache.MenuChangeLog;
+import com.sky.cache.SetmealDishIndex;
+import com.sky.constant.StatusConstant;
+import com.sky.dto.DishPageQueryDTO;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.entity.Setmeal;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.result.PageResult;
+import com.sky.service.DishService;
+import com.sky.service.ImageRenditionService;
+import com.sky.service.MenuSnapshotService;
+import com.sky.vo.DishVO;
+import com.sky.vo.SetmealVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 菜品业务层
+ */
+@Service
+@Slf4j
+public class DishServiceImpl implements DishService {
+
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private DishFlavorMapper dishFlavorMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private SetmealDishIndex setmealDishIndex;
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+    @Autowired
+    private MenuChangeLog menuChangeLog;
+    @Autowired
+    private ImageRenditionService imageRenditionService;
+
+    /**
+     * 菜品分页查询
+     * @param dishPageQueryDTO
+     * @return
+     */
+    public PageResult pageQuery(DishPageQueryDTO dishPageQueryDTO) {
+        PageHelper.startPage(dishPageQueryDTO.getPage(), dishPageQueryDTO.getPageSize());
+        Page<DishVO> page = dishMapper.pageQuery(dishPageQueryDTO);
+        fillFlavors(page.getResult());
+        return new PageResult(page.getTotal(), page.getResult());
+    }
+
+    /**
+     * 查询分类下起售中的菜品及其口味
+     * @param categoryId
+     * @return
+     */
+    public List<DishVO> listWithFlavor(Long categoryId) {
+        Dish dish = Dish.builder()
+                .categoryId(categoryId)
+                .status(StatusConstant.ENABLE)
+                .build();
+        List<DishVO> dishVOList = dishMapper.listVO(dish);
+        fillFlavors(dishVOList);
+        return dishVOList;
+    }
+
+    /**
+     * 根据id批量查询菜品及其口味（不限状态）
+     * @param ids
+     * @return
+     */
+    public List<DishVO> listWithFlavorByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<DishVO> dishVOList = dishMapper.listVOByIds(ids);
+        fillFlavors(dishVOList);
+        return dishVOList;
+    }
+
+    /**
+     * 菜品起售、停售
+     * 停售时从依赖索引里取出包含该菜品的全部套餐，在同一个事务里用一条update把它们一起停售
+     * @param status
+     * @param id
+     */
+    @Transactional
+    public void startOrStop(Integer status, Long id) {
+        Dish dish = dishMapper.getById(id);
+        if (dish == null) {
+            return;
+        }
+        dishMapper.updateStatus(Dish.builder()
+                .id(id)
+                .status(status)
+                .build());
+
+        Set<Long> categoryIds = new HashSet<>();
+        categoryIds.add(dish.getCategoryId());
+
+        Set<Long> setmealIds = StatusConstant.DISABLE.equals(status)
+                ? setmealDishIndex.getSetmealIdsByDishId(id)
+                : Collections.emptySet();
+        if (!setmealIds.isEmpty()) {
+            int updated = setmealMapper.updateStatusByIds(Setmeal.builder()
+                    .status(StatusConstant.DISABLE)
+                    .build(), setmealIds);
+            log.info("菜品{}停售，级联停售套餐{}个", id, updated);
+            for (SetmealVO setmealVO : setmealMapper.listVOByIds(setmealIds)) {
+                categoryIds.add(setmealVO.getCategoryId());
+            }
+        }
+
+        //以下都在事务提交之后生效
+        setmealDishIndex.onDishStatusChanged(id, status);
+        menuSnapshotService.refresh(categoryIds);
+        menuChangeLog.record(MenuChangeLog.DISH, Collections.singletonList(id));
+        menuChangeLog.record(MenuChangeLog.SETMEAL, setmealIds);
+    }
+
+    /**
+     * 为一批菜品填充缩略图和口味：一条in查询查出所有口味，再在内存里按dishId分组，
+     * 不管这批有多少个菜品都只查一次口味表
+     * @param dishVOList
+     */
+    private void fillFlavors(List<DishVO> dishVOList) {
+        if (dishVOList.isEmpty()) {
+            return;
+        }
+        Map<Long, List<DishFlavor>> flavorsByDishId = new HashMap<>();
+        for (DishVO dishVO : dishVOList) {
+            dishVO.setThumbnail(imageRenditionService.thumbnailUrlOrImage(dishVO.getImage()));
+            List<DishFlavor> flavors = new ArrayList<>();
+            dishVO.setFlavors(flavors);
+            flavorsByDishId.put(dishVO.getId(), flavors);
+        }
+
+        List<DishFlavor> flavors = dishFlavorMapper.getByDishIds(flavorsByDishId.keySet());
+        for (DishFlavor flavor : flavors) {
+            List<DishFlavor> dishFlavors = flavorsByDishId.get(flavor.getDishId());
+            if (dishFlavors != null) {
+                dishFlavors.add(flavor);
+            }
+        }
+    }
+}
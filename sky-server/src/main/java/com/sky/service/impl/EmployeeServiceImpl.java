@@ -2,7 +2,9 @@ package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.cache.PageTotalCache;
 import com.sky.constant.MessageConstant;
+import com.sky.constant.PageConstant;
 import com.sky.constant.PasswordConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.context.BaseContext;
@@ -16,6 +18,7 @@ import com.sky.exception.PasswordErrorException;
 import com.sky.mapper.EmployeeMapper;
 import com.sky.result.PageResult;
 import com.sky.service.EmployeeService;
+import com.sky.utils.PageCursor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -23,6 +26,7 @@ import org.springframework.util.DigestUtils;
 import org.springframework.web.servlet.LocaleResolver;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -32,6 +36,8 @@ public class EmployeeServiceImpl implements EmployeeService {
     private EmployeeMapper employeeMapper;
     @Autowired
     private LocaleResolver localeResolver;
+    @Autowired
+    private PageTotalCache pageTotalCache;
 
     /**
      * 员工登录
@@ -96,6 +102,7 @@ public class EmployeeServiceImpl implements EmployeeService {
 
         // 调用mapper创建并执行新增员工的方法
         employeeMapper.insert(employee);
+        pageTotalCache.invalidate(PageTotalCache.EMPLOYEE);
     }
 
     /**
@@ -107,10 +114,32 @@ public class EmployeeServiceImpl implements EmployeeService {
      */
     @Override
     public PageResult pageQuery(EmployeePageQueryDTO employeePageQueryDTO) {
+        // 传了游标走游标分页，不传的老客户端继续走页码分页
+        if (employeePageQueryDTO.getCursor() != null) {
+            return pageQueryByCursor(employeePageQueryDTO);
+        }
+
+        // 不需要总数的客户端：多查一条判断是否还有下一页，省掉count(*)
+        if (PageConstant.COUNT_MODE_HAS_NEXT.equals(employeePageQueryDTO.getCountMode())) {
+            return pageQueryHasNext(employeePageQueryDTO);
+        }
+
+        // 缓存总数模式：同一查询条件的总数命中缓存时不再count(*)
+        boolean cacheTotal = PageConstant.COUNT_MODE_CACHED.equals(employeePageQueryDTO.getCountMode());
+        String filterKey = null;
+        long generation = 0;
+        Long cachedTotal = null;
+        if (cacheTotal) {
+            filterKey = PageTotalCache.filterKey(employeePageQueryDTO.getName());
+            generation = pageTotalCache.generation(PageTotalCache.EMPLOYEE);
+            cachedTotal = pageTotalCache.get(PageTotalCache.EMPLOYEE, filterKey);
+        }
+
         // select * from employee limit 0,10
 
-        // 采用MYBATIS框架下的PageHelper 动态拼接页码 分页查询
-        PageHelper.startPage(employeePageQueryDTO.getPage(),employeePageQueryDTO.getPageSize(),"create_time desc");
+        // 采用MYBATIS框架下的PageHelper 动态拼接页码 分页查询（第三个参数表示是否执行count）
+        PageHelper.startPage(employeePageQueryDTO.getPage(),employeePageQueryDTO.getPageSize(),cachedTotal == null)
+                .setOrderBy("create_time desc");
 
         // Page是框架指定的，page对象本身只是一个能装很多实体类的列表。
         // Page里存好返回的一页的所有Employee以后，可以自动用page.getTotal()获取一页的总记录数total
@@ -120,12 +149,71 @@ public class EmployeeServiceImpl implements EmployeeService {
            法按接口格式同时返回total和当页的数据集合records   */
         // 故实际应当返回pageresult对象封装两个属性：total和records（返回数据的集合）.
         // 因此此时需要先从page中获取total和records出来 存到pageresult返回
-        long total = page.getTotal();
         List<Employee> records = page.getResult();
+        if (cachedTotal != null) {
+            PageResult pageResult = new PageResult(cachedTotal, records);
+            pageResult.setTotalMode(PageConstant.COUNT_MODE_CACHED);
+            return pageResult;
+        }
 
+        long total = page.getTotal();
+        if (cacheTotal) {
+            pageTotalCache.put(PageTotalCache.EMPLOYEE, filterKey, total, generation);
+        }
         return new PageResult(total,records);  //返回pageresult对象
     }
 
+    /**
+     * 不统计总数的分页查询：按offset多查一条，用多出来的这条判断是否还有下一页
+     * @param [employeePageQueryDTO]
+     * @return com.sky.result.PageResult
+     */
+    private PageResult pageQueryHasNext(EmployeePageQueryDTO employeePageQueryDTO) {
+        int pageSize = Math.max(employeePageQueryDTO.getPageSize(), PageConstant.MIN_PAGE_SIZE);
+        int offset = Math.max(employeePageQueryDTO.getPage() - 1, 0) * pageSize;
+        PageHelper.offsetPage(offset, pageSize + 1, false).setOrderBy("create_time desc");
+        List<Employee> records = employeeMapper.pageQuery(employeePageQueryDTO);
+
+        boolean hasNext = records.size() > pageSize;
+        if (hasNext) {
+            records = new ArrayList<>(records.subList(0, pageSize));
+        }
+        PageResult pageResult = new PageResult(-1, records);
+        pageResult.setTotalMode(PageConstant.COUNT_MODE_HAS_NEXT);
+        pageResult.setHasNext(hasNext);
+        return pageResult;
+    }
+
+    /**
+     * 游标分页查询：根据上一页最后一行的(create_time, id)直接定位，不做offset也不统计总数
+     * @param [employeePageQueryDTO]
+     * @return com.sky.result.PageResult
+     */
+    private PageResult pageQueryByCursor(EmployeePageQueryDTO employeePageQueryDTO) {
+        LocalDateTime createTime = null;
+        Long id = null;
+        if (!employeePageQueryDTO.getCursor().isEmpty()) {
+            PageCursor cursor = PageCursor.decode(employeePageQueryDTO.getCursor(), 2);
+            createTime = cursor.getDateTime(0);
+            id = cursor.getLong(1);
+        }
+
+        // 多查一条用来判断是否还有下一页
+        int pageSize = Math.max(employeePageQueryDTO.getPageSize(), PageConstant.MIN_PAGE_SIZE);
+        List<Employee> records = employeeMapper.pageQueryByCursor(employeePageQueryDTO, createTime, id, pageSize + 1);
+
+        PageResult pageResult = new PageResult(-1, records);
+        pageResult.setTotalMode(PageConstant.COUNT_MODE_CURSOR);
+        pageResult.setHasNext(records.size() > pageSize);
+        if (records.size() > pageSize) {
+            records = new ArrayList<>(records.subList(0, pageSize));
+            Employee last = records.get(records.size() - 1);
+            pageResult.setRecords(records);
+            pageResult.setNextCursor(PageCursor.encode(last.getCreateTime(), last.getId()));
+        }
+        return pageResult;
+    }
+
     /**
      * 启用禁用员工账号
      * @param [s, id]
@@ -140,6 +228,7 @@ public class EmployeeServiceImpl implements EmployeeService {
         employee.setStatus(status);
         employee.setId(id);
         employeeMapper.update(employee);
+        pageTotalCache.invalidate(PageTotalCache.EMPLOYEE);
     }
 
     /**
@@ -167,6 +256,8 @@ public class EmployeeServiceImpl implements EmployeeService {
 
         // 调用mapper里已经定义好的更新方法
         employeeMapper.update(employee);
+        // 姓名可能被修改，会影响按姓名过滤的总数
+        pageTotalCache.invalidate(PageTotalCache.EMPLOYEE);
     }
 
 }
@@ -0,0 +1,283 @@
+package com.sky.service.impl;
+
+import com.sky.properties.ImageProperties;
+import com.sky.service.ImageRenditionService;
+import com.sky.utils.FileStorage;
+import com.sky.utils.ImageRenditions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 图片衍生版本生成
+ * 上传完成后把任务丢进有界线程池，读取原图、等比缩放到固定宽度，压缩成JPEG写回原图旁边；
+ * 运行环境里有WebP编码器（ImageIO插件）时再额外写一份WebP。队列满时丢弃任务，不影响上传请求；
+ * 对外只返回确认已生成的缩略图地址，任务被丢弃或失败时返回原图地址，并在下次用到时后台补生成：
+ * 先查存储里是否已有缩略图（历史图片），没有再生成；原图不存在的不再重试，其他失败按退避时间重试。
+ * 缩略图就绪后通知登记的回调（例如重建引用了原图地址的菜单快照）
+ */
+@Service
+@Slf4j
+public class ImageRenditionServiceImpl implements ImageRenditionService {
+
+    @Autowired
+    private FileStorage fileStorage;
+    @Autowired
+    private ImageProperties imageProperties;
+
+    private ThreadPoolExecutor executor;
+
+    // 已确认存在的缩略图文件名
+    private final Set<String> ready = ConcurrentHashMap.newKeySet();
+    // 已提交、尚未结束的生成任务（原图文件名），避免重复提交
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // 原图不存在或不是可识别的图片，不再重试
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+    // 生成失败的原图文件名 -> 允许再次提交的时间（毫秒）
+    private final Map<String, Long> retryAfter = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> readyListeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                imageProperties.getWorkerThreads(),
+                imageProperties.getWorkerThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(imageProperties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "image-rendition-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (r, e) -> {
+                    //丢弃的任务要释放占位，下次用到这张图时还能重新提交
+                    pending.remove(((RenditionTask) r).objectName);
+                    log.warn("缩略图任务队列已满，丢弃任务：{}", ((RenditionTask) r).objectName);
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 异步生成缩略图，同一张图已在生成中时不重复提交
+     * @param objectName
+     */
+    public void generateAsync(String objectName) {
+        if (objectName == null || unsupported.contains(objectName) || !pending.add(objectName)) {
+            return;
+        }
+        executor.execute(new RenditionTask(objectName));
+    }
+
+    /**
+     * 缩略图地址，还没确认缩略图存在时退回原图地址；只查内存，不访问存储
+     * @param imageUrl
+     * @return
+     */
+    public String thumbnailUrlOrImage(String imageUrl) {
+        String objectName = ImageRenditions.objectNameOf(imageUrl);
+        if (objectName == null || objectName.isEmpty()) {
+            return imageUrl;
+        }
+        if (ready.contains(thumbnailNameOf(objectName))) {
+            return ImageRenditions.thumbnailUrl(imageUrl);
+        }
+        //缩略图未确认（任务被丢弃、生成失败或是历史图片），退避期外交给后台补生成
+        Long after = retryAfter.get(objectName);
+        if (after == null || after <= System.currentTimeMillis()) {
+            generateAsync(objectName);
+        }
+        return imageUrl;
+    }
+
+    /**
+     * 登记缩略图就绪的回调
+     * @param listener
+     */
+    public void addReadyListener(Consumer<String> listener) {
+        readyListeners.add(listener);
+    }
+
+    private void generate(String objectName) throws IOException {
+        //历史图片可能早已有缩略图，只是本进程还不知道
+        String jpegName = thumbnailNameOf(objectName);
+        if (fileStorage.exists(jpegName)) {
+            ready.add(jpegName);
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        BufferedImage original;
+        try (InputStream inputStream = fileStorage.download(objectName)) {
+            original = ImageIO.read(inputStream);
+        }
+        if (original == null) {
+            log.info("不是可识别的图片，跳过缩略图：{}", objectName);
+            unsupported.add(objectName);
+            return;
+        }
+
+        BufferedImage thumbnail = scale(original, imageProperties.getThumbnailWidth());
+
+        //WebP先写，JPEG写完即视为就绪
+        byte[] webp = encode(thumbnail, ImageRenditions.WEBP);
+        if (webp != null) {
+            fileStorage.upload(webp, ImageRenditions.rename(objectName, ImageRenditions.THUMBNAIL_SUFFIX, ImageRenditions.WEBP));
+        }
+
+        byte[] jpeg = encode(thumbnail, ImageRenditions.JPEG);
+        fileStorage.upload(jpeg, jpegName);
+        ready.add(jpegName);
+        log.info("缩略图已生成：{}，{}x{} -> {}x{}，JPEG {}字节，耗时{}ms", objectName,
+                original.getWidth(), original.getHeight(), thumbnail.getWidth(), thumbnail.getHeight(),
+                jpeg.length, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 等比缩放到指定宽度，转成不带透明通道的RGB（透明部分填白色）
+     * 缩小倍数较大时每次缩小一半逐步缩放，避免一次双线性插值造成的锯齿
+     */
+    private static BufferedImage scale(BufferedImage source, int targetWidth) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (width > targetWidth) {
+            height = Math.max(1, (int) Math.round((double) height * targetWidth / width));
+            width = targetWidth;
+        }
+
+        BufferedImage current = toRgb(source);
+        int currentWidth = current.getWidth();
+        int currentHeight = current.getHeight();
+        while (currentWidth != width || currentHeight != height) {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = next;
+        }
+        return current;
+    }
+
+    private static BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return rgb;
+    }
+
+    /**
+     * 按指定格式压缩编码，没有对应编码器时返回null
+     */
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            return null;
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOutputStream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (types != null && types.length > 0 && param.getCompressionType() == null) {
+                    param.setCompressionType(types[0]);
+                }
+                param.setCompressionQuality(imageProperties.getThumbnailQuality());
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static String thumbnailNameOf(String objectName) {
+        return ImageRenditions.rename(objectName, ImageRenditions.THUMBNAIL_SUFFIX, ImageRenditions.JPEG);
+    }
+
+    private void notifyReady(String objectName) {
+        for (Consumer<String> listener : readyListeners) {
+            try {
+                listener.accept(objectName);
+            } catch (RuntimeException e) {
+                log.error("缩略图就绪回调失败：{}", objectName, e);
+            }
+        }
+    }
+
+    /**
+     * 缩略图生成任务，结束（成功或失败）后释放占位
+     */
+    private final class RenditionTask implements Runnable {
+        private final String objectName;
+
+        private RenditionTask(String objectName) {
+            this.objectName = objectName;
+        }
+
+        @Override
+        public void run() {
+            try {
+                generate(objectName);
+                retryAfter.remove(objectName);
+            } catch (NoSuchFileException e) {
+                //历史数据或外部地址，存储里没有原图，重试也没用
+                unsupported.add(objectName);
+                log.info("原图不存在，跳过缩略图：{}", objectName);
+            } catch (Exception e) {
+                retryAfter.put(objectName, System.currentTimeMillis()
+                        + TimeUnit.SECONDS.toMillis(imageProperties.getRetryBackoffSeconds()));
+                log.error("缩略图生成失败：{}", objectName, e);
+            } finally {
+                pending.remove(objectName);
+            }
+            if (ready.contains(thumbnailNameOf(objectName))) {
+                notifyReady(objectName);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.cache.AfterCommit;
+import com.sky.constant.CategoryConstant;
+import com.sky.constant.MessageConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.exception.CategoryNotFoundException;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.mapper.CategoryMapper;
+import com.sky.result.Result;
+import com.sky.service.DishService;
+import com.sky.service.ImageRenditionService;
+import com.sky.service.MenuSnapshotService;
+import com.sky.service.SetmealService;
+import com.sky.utils.ImageRenditions;
+import com.sky.vo.DishVO;
+import com.sky.vo.SetmealVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 菜单快照业务层
+ * 菜单对所有用户都一样，按分类预先查好并序列化成JSON字节缓存起来，请求时直接把字节写到响应里，
+ * 不再逐个请求查库和做对象映射；数据变化时只重建受影响的分类
+ * 只为数据库中存在的分类建快照，客户端传入不存在的id不会在缓存里留下任何条目
+ * 构建时缩略图还没生成的菜品或套餐暂用原图地址，快照记下这些原图地址，缩略图就绪后重建所在分类
+ */
+@Service
+@Slf4j
+public class MenuSnapshotServiceImpl implements MenuSnapshotService {
+
+    private final ObjectMapper objectMapper = new JacksonObjectMapper();
+
+    private final Map<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+    //每个分类一个版本号，构建前记下版本，构建期间版本变了说明数据又改过，构建结果作废
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private DishService dishService;
+    @Autowired
+    private SetmealService setmealService;
+    @Autowired
+    private ImageRenditionService imageRenditionService;
+
+    @PostConstruct
+    public void init() {
+        imageRenditionService.addReadyListener(this::onThumbnailReady);
+    }
+
+    /**
+     * 获取某个分类的菜单快照
+     * @param type 分类类型，与分类实际类型不符时按分类不存在处理
+     * @param categoryId
+     * @return
+     */
+    public byte[] getCategorySnapshot(Integer type, Long categoryId) {
+        if (categoryId == null) {
+            throw new CategoryNotFoundException(MessageConstant.CATEGORY_NOT_FOUND);
+        }
+        Snapshot snapshot = snapshots.get(categoryId);
+        if (snapshot == null || snapshot.version != currentVersion(categoryId)) {
+            snapshot = build(categoryId, currentVersion(categoryId));
+        }
+        if (snapshot == null || !type.equals(snapshot.type)) {
+            throw new CategoryNotFoundException(MessageConstant.CATEGORY_NOT_FOUND);
+        }
+        return snapshot.json;
+    }
+
+    /**
+     * 重建受影响分类的快照
+     * @param categoryIds
+     */
+    public void refresh(Collection<Long> categoryIds) {
+        List<Long> ids = new ArrayList<>();
+        for (Long categoryId : categoryIds) {
+            if (categoryId != null) {
+                ids.add(categoryId);
+            }
+        }
+        AfterCommit.run(() -> {
+            for (Long categoryId : ids) {
+                //先让旧快照失效，再重建，重建失败时读请求会按需重新构建
+                long version = versionOf(categoryId).incrementAndGet();
+                snapshots.remove(categoryId);
+                try {
+                    build(categoryId, version);
+                } catch (RuntimeException e) {
+                    log.error("菜单快照重建失败，分类id：{}", categoryId, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 重建全部分类的快照：已缓存的分类全部失效并重建
+     */
+    public void refreshAll() {
+        refresh(new ArrayList<>(snapshots.keySet()));
+    }
+
+    /**
+     * 缩略图就绪：重建还在用这张原图的分类
+     * @param objectName 原图存储的文件名
+     */
+    private void onThumbnailReady(String objectName) {
+        List<Long> categoryIds = new ArrayList<>();
+        for (Map.Entry<Long, Snapshot> entry : snapshots.entrySet()) {
+            for (String image : entry.getValue().fallbackImages) {
+                if (objectName.equals(ImageRenditions.objectNameOf(image))) {
+                    categoryIds.add(entry.getKey());
+                    break;
+                }
+            }
+        }
+        if (!categoryIds.isEmpty()) {
+            log.debug("缩略图已就绪：{}，重建菜单快照，分类id：{}", objectName, categoryIds);
+            refresh(categoryIds);
+        }
+    }
+
+    /**
+     * 查询分类下的菜品或套餐并序列化，版本没变才放进缓存
+     * @return 分类不存在时返回null
+     */
+    private Snapshot build(Long categoryId, long version) {
+        Category category = categoryMapper.getById(categoryId);
+        if (category == null) {
+            snapshots.remove(categoryId);
+            return null;
+        }
+
+        List<?> items;
+        Set<String> fallbackImages = new HashSet<>();
+        if (!StatusConstant.ENABLE.equals(category.getStatus())) {
+            //分类已禁用，菜单里不展示
+            items = Collections.emptyList();
+        } else if (CategoryConstant.DISH.equals(category.getType())) {
+            List<DishVO> dishVOList = dishService.listWithFlavor(categoryId);
+            for (DishVO dishVO : dishVOList) {
+                addFallbackImage(fallbackImages, dishVO.getImage(), dishVO.getThumbnail());
+            }
+            items = dishVOList;
+        } else {
+            List<SetmealVO> setmealVOList = setmealService.listWithDishes(categoryId);
+            for (SetmealVO setmealVO : setmealVOList) {
+                addFallbackImage(fallbackImages, setmealVO.getImage(), setmealVO.getThumbnail());
+            }
+            items = setmealVOList;
+        }
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(Result.success(items));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("菜单快照序列化失败，分类id：" + categoryId, e);
+        }
+
+        Snapshot snapshot = new Snapshot(version, category.getType(), json, fallbackImages);
+        //分类确实存在才登记版本号
+        if (versionOf(categoryId).get() == version) {
+            snapshots.put(categoryId, snapshot);
+            //构建期间就绪的缩略图错过了回调，这里补一次重建
+            for (String image : fallbackImages) {
+                if (!image.equals(imageRenditionService.thumbnailUrlOrImage(image))) {
+                    refresh(Collections.singletonList(categoryId));
+                    break;
+                }
+            }
+        }
+        log.debug("菜单快照已构建，分类id：{}，大小：{}字节", categoryId, json.length);
+        return snapshot;
+    }
+
+    //还没有登记版本号的分类视为版本0，不创建条目
+    private long currentVersion(Long categoryId) {
+        AtomicLong version = versions.get(categoryId);
+        return version == null ? 0 : version.get();
+    }
+
+    //缩略图地址退回了原图，记下原图地址
+    private static void addFallbackImage(Set<String> fallbackImages, String image, String thumbnail) {
+        if (image != null && image.equals(thumbnail)) {
+            fallbackImages.add(image);
+        }
+    }
+
+    private AtomicLong versionOf(Long categoryId) {
+        return versions.computeIfAbsent(categoryId, key -> new AtomicLong());
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final Integer type;
+        private final byte[] json;
+        //缩略图还没就绪、暂用原图地址的原图地址
+        private final Set<String> fallbackImages;
+
+        private Snapshot(long version, Integer type, byte[] json, Set<String> fallbackImages) {
+            this.version = version;
+            this.type = type;
+            this.json = json;
+            this.fallbackImages = fallbackImages;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.sky.service.impl;
+
+import com.sky.cache.MenuChangeLog;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.mapper.CategoryMapper;
+import com.sky.properties.MenuProperties;
+import com.sky.service.CategoryService;
+import com.sky.service.DishService;
+import com.sky.service.MenuSyncService;
+import com.sky.service.SetmealService;
+import com.sky.vo.DishVO;
+import com.sky.vo.MenuDeltaVO;
+import com.sky.vo.SetmealVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 菜单增量同步业务层
+ */
+@Service
+@Slf4j
+public class MenuSyncServiceImpl implements MenuSyncService {
+
+    @Autowired
+    private MenuChangeLog menuChangeLog;
+    @Autowired
+    private MenuProperties menuProperties;
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private DishService dishService;
+    @Autowired
+    private SetmealService setmealService;
+
+    /**
+     * 菜单增量同步
+     * @param version
+     * @return
+     */
+    public MenuDeltaVO delta(Long version) {
+        //先取版本号再查数据：查询期间发生的变更版本号更大，下次同步还会再取一次，不会漏
+        long currentVersion = menuChangeLog.currentVersion();
+
+        //变更日志是单节点的，关闭增量同步（多实例部署）时始终返回全量
+        Map<String, Set<Long>> changes = version == null || !menuProperties.isIncrementalSync()
+                ? null : menuChangeLog.changesBetween(version, currentVersion);
+        if (changes == null) {
+            return full(currentVersion);
+        }
+
+        MenuDeltaVO menuDeltaVO = MenuDeltaVO.builder()
+                .version(currentVersion)
+                .full(false)
+                .build();
+
+        //变更过的数据按id重新查一遍：查不到（已删除）或不是起售状态的放进删除列表
+        Set<Long> categoryIds = changes.getOrDefault(MenuChangeLog.CATEGORY, Collections.emptySet());
+        if (!categoryIds.isEmpty()) {
+            Set<Long> removed = new HashSet<>(categoryIds);
+            for (Category category : categoryMapper.getByIds(categoryIds)) {
+                if (StatusConstant.ENABLE.equals(category.getStatus())) {
+                    menuDeltaVO.getCategories().add(category);
+                    removed.remove(category.getId());
+                }
+            }
+            menuDeltaVO.getRemovedCategoryIds().addAll(removed);
+        }
+
+        Set<Long> dishIds = changes.getOrDefault(MenuChangeLog.DISH, Collections.emptySet());
+        if (!dishIds.isEmpty()) {
+            Set<Long> removed = new HashSet<>(dishIds);
+            for (DishVO dishVO : dishService.listWithFlavorByIds(dishIds)) {
+                if (StatusConstant.ENABLE.equals(dishVO.getStatus())) {
+                    menuDeltaVO.getDishes().add(dishVO);
+                    removed.remove(dishVO.getId());
+                }
+            }
+            menuDeltaVO.getRemovedDishIds().addAll(removed);
+        }
+
+        Set<Long> setmealIds = changes.getOrDefault(MenuChangeLog.SETMEAL, Collections.emptySet());
+        if (!setmealIds.isEmpty()) {
+            Set<Long> removed = new HashSet<>(setmealIds);
+            for (SetmealVO setmealVO : setmealService.listWithDishesByIds(setmealIds)) {
+                if (StatusConstant.ENABLE.equals(setmealVO.getStatus())) {
+                    menuDeltaVO.getSetmeals().add(setmealVO);
+                    removed.remove(setmealVO.getId());
+                }
+            }
+            menuDeltaVO.getRemovedSetmealIds().addAll(removed);
+        }
+        return menuDeltaVO;
+    }
+
+    /**
+     * 全量数据：起售中的全部分类、菜品和套餐
+     */
+    private MenuDeltaVO full(long currentVersion) {
+        List<Category> categories = new ArrayList<>();
+        for (Category category : categoryService.list(null)) {
+            if (StatusConstant.ENABLE.equals(category.getStatus())) {
+                categories.add(category);
+            }
+        }
+        return MenuDeltaVO.builder()
+                .version(currentVersion)
+                .full(true)
+                .categories(categories)
+                .dishes(dishService.listWithFlavor(null))
+                .setmeals(setmealService.listWithDishes(null))
+                .build();
+    }
+}
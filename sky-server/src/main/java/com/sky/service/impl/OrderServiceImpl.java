@@ -0,0 +1,262 @@
+package com.sky.service.impl;
+
+import com.sky.cache.OrderStatusCounter;
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.constant.MessageConstant;
+import com.sky.context.BaseContext;
+import com.sky.dto.OrdersConfirmDTO;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.entity.AddressBook;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.entity.ShoppingCart;
+import com.sky.exception.AddressBookBusinessException;
+import com.sky.exception.OrderBusinessException;
+import com.sky.exception.ShoppingCartBusinessException;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.OrderSearchMapper;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.properties.OrderProperties;
+import com.sky.result.PageResult;
+import com.sky.service.OrderService;
+import com.sky.task.OrderTimeoutTask;
+import com.sky.utils.SnowflakeIdGenerator;
+import com.sky.vo.OrderStatisticsVO;
+import com.sky.vo.OrderSubmitVO;
+import com.sky.vo.OrderVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 订单业务层
+ */
+@Service
+@Slf4j
+public class OrderServiceImpl implements OrderService {
+
+    // order_search.order_dishes 的列宽
+    private static final int ORDER_DISHES_MAX_LENGTH = 512;
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+    @Autowired
+    private OrderSearchMapper orderSearchMapper;
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+    @Autowired
+    private AddressBookMapper addressBookMapper;
+    @Autowired
+    private OrderProperties orderProperties;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+    @Autowired
+    private OrderTimeoutTask orderTimeoutTask;
+
+    /**
+     * 用户下单
+     * 地址和购物车在事务外各查一次，金额和订单明细在内存中算好，
+     * 订单和明细的id在事务外预先生成，不依赖数据库自增主键，明细不必等订单插入后才能关联订单；
+     * 事务里只有四条写语句：一条delete清掉本次下单的购物车条目、插入订单、一条多行insert写入全部明细、写入订单搜索读模型，尽量缩短持锁时间
+     * @param ordersSubmitDTO
+     * @return
+     */
+    public OrderSubmitVO submitOrder(OrdersSubmitDTO ordersSubmitDTO) {
+        Long userId = BaseContext.getCurrentId();
+
+        //1、校验地址和购物车
+        AddressBook addressBook = addressBookMapper.getById(ordersSubmitDTO.getAddressBookId());
+        if (addressBook == null || !userId.equals(addressBook.getUserId())) {
+            throw new AddressBookBusinessException(MessageConstant.ADDRESS_BOOK_IS_NULL);
+        }
+        List<ShoppingCart> shoppingCarts = shoppingCartMapper.listByUserId(userId);
+        if (shoppingCarts == null || shoppingCarts.isEmpty()) {
+            throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
+        }
+
+        //2、在内存中生成id、计算金额、准备订单和明细
+        long orderId = idGenerator.nextId();
+        List<OrderDetail> orderDetails = new ArrayList<>(shoppingCarts.size());
+        List<Long> cartIds = new ArrayList<>(shoppingCarts.size());
+        BigDecimal dishAmount = BigDecimal.ZERO;
+        StringBuilder orderDishes = new StringBuilder();
+        for (ShoppingCart cart : shoppingCarts) {
+            orderDishes.append(cart.getName()).append('*').append(cart.getNumber()).append(';');
+            dishAmount = dishAmount.add(cart.getAmount().multiply(BigDecimal.valueOf(cart.getNumber())));
+            cartIds.add(cart.getId());
+            orderDetails.add(OrderDetail.builder()
+                    .id(idGenerator.nextId())
+                    .orderId(orderId)
+                    .name(cart.getName())
+                    .image(cart.getImage())
+                    .dishId(cart.getDishId())
+                    .setmealId(cart.getSetmealId())
+                    .dishFlavor(cart.getDishFlavor())
+                    .number(cart.getNumber())
+                    .amount(cart.getAmount())
+                    .build());
+        }
+        int packAmount = ordersSubmitDTO.getPackAmount() == null ? 0 : ordersSubmitDTO.getPackAmount();
+        BigDecimal amount = dishAmount.add(BigDecimal.valueOf(packAmount)).add(orderProperties.getDeliveryFee());
+        if (ordersSubmitDTO.getAmount() != null && ordersSubmitDTO.getAmount().compareTo(amount) != 0) {
+            log.warn("用户{}下单金额与服务端计算不一致，客户端：{}，服务端：{}", userId, ordersSubmitDTO.getAmount(), amount);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Orders orders = Orders.builder()
+                .id(orderId)
+                .number(Long.toString(orderId))
+                .status(Orders.PENDING_PAYMENT)
+                .payStatus(Orders.UN_PAID)
+                .userId(userId)
+                .addressBookId(addressBook.getId())
+                .orderTime(now)
+                .payMethod(ordersSubmitDTO.getPayMethod())
+                .amount(amount)
+                .remark(ordersSubmitDTO.getRemark())
+                .phone(addressBook.getPhone())
+                .consignee(addressBook.getConsignee())
+                .address(fullAddress(addressBook))
+                .estimatedDeliveryTime(ordersSubmitDTO.getEstimatedDeliveryTime())
+                .deliveryStatus(ordersSubmitDTO.getDeliveryStatus())
+                .packAmount(packAmount)
+                .tablewareNumber(ordersSubmitDTO.getTablewareNumber() == null ? 0 : ordersSubmitDTO.getTablewareNumber())
+                .tablewareStatus(ordersSubmitDTO.getTablewareStatus())
+                .build();
+
+        //3、一个短事务完成全部写入
+        transactionTemplate.executeWithoutResult(status -> {
+            //先删购物车：只删除本次下单读到的条目，下单过程中新加入购物车的商品保留；
+            //删掉的行数不足说明这些条目已被并发的另一次下单（例如重复点击）用掉，整个事务回滚
+            int deleted = shoppingCartMapper.deleteByUserIdAndIds(userId, cartIds);
+            if (deleted < cartIds.size()) {
+                throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_CHANGED);
+            }
+            orderMapper.insert(orders);
+            orderDetailMapper.insertBatch(orderDetails);
+            orderSearchMapper.insert(orders, summary(orderDishes));
+            orderStatusCounter.onCreated(orders.getStatus());
+            orderTimeoutTask.onOrderCreated(orders);
+        });
+
+        return OrderSubmitVO.builder()
+                .id(orders.getId())
+                .orderNumber(orders.getNumber())
+                .orderAmount(orders.getAmount())
+                .orderTime(orders.getOrderTime())
+                .build();
+    }
+
+    /**
+     * 订单条件搜索，只查order_search读模型，不访问orders宽表、不关联订单明细
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    public PageResult conditionSearch(OrdersPageQueryDTO ordersPageQueryDTO) {
+        PageHelper.startPage(ordersPageQueryDTO.getPage(), ordersPageQueryDTO.getPageSize())
+                .setOrderBy("order_time desc");
+        Page<OrderVO> page = orderSearchMapper.conditionSearch(ordersPageQueryDTO);
+        return new PageResult(page.getTotal(), page.getResult());
+    }
+
+    /**
+     * 各个状态的订单数量统计，直接读内存计数
+     * @return
+     */
+    public OrderStatisticsVO statistics() {
+        return orderStatusCounter.statistics();
+    }
+
+    /**
+     * 接单
+     * @param ordersConfirmDTO
+     */
+    public void confirm(OrdersConfirmDTO ordersConfirmDTO) {
+        transition(ordersConfirmDTO.getId(), Orders.TO_BE_CONFIRMED, Orders.builder()
+                .status(Orders.CONFIRMED)
+                .build());
+    }
+
+    /**
+     * 派送订单
+     * 自动完成时间在派送时算好并写入订单，预约了较晚送达时间的订单不会一派送就被自动完成，重启后也能按原时间恢复
+     * @param id
+     */
+    public void delivery(Long id) {
+        Orders orders = orderMapper.getById(id);
+        if (orders == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+        LocalDateTime autoCompleteTime = orderTimeoutTask.autoCompleteTime(LocalDateTime.now(),
+                orders.getEstimatedDeliveryTime());
+        transition(id, Orders.CONFIRMED, Orders.builder()
+                .status(Orders.DELIVERY_IN_PROGRESS)
+                .autoCompleteTime(autoCompleteTime)
+                .build());
+        orderTimeoutTask.onDelivery(id, autoCompleteTime);
+    }
+
+    /**
+     * 完成订单
+     * @param id
+     */
+    public void complete(Long id) {
+        transition(id, Orders.DELIVERY_IN_PROGRESS, Orders.builder()
+                .status(Orders.COMPLETED)
+                .deliveryTime(LocalDateTime.now())
+                .build());
+        orderTimeoutTask.onCompleted(id);
+    }
+
+    /**
+     * 订单状态流转：带原状态条件更新，和订单搜索读模型的同步放在同一个事务里，提交后再同步内存计数
+     * @param target 新状态及需要一起更新的字段
+     */
+    private void transition(Long id, Integer fromStatus, Orders target) {
+        List<Long> ids = Collections.singletonList(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            int rows = orderMapper.updateStatusByIds(target, fromStatus, ids);
+            if (rows == 0) {
+                throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+            }
+            orderSearchMapper.syncStatusByIds(ids);
+            orderStatusCounter.onTransition(fromStatus, target.getStatus(), rows);
+        });
+    }
+
+    /**
+     * 订单菜品摘要，超出读模型列宽时截断
+     */
+    private static String summary(StringBuilder orderDishes) {
+        return orderDishes.length() > ORDER_DISHES_MAX_LENGTH
+                ? orderDishes.substring(0, ORDER_DISHES_MAX_LENGTH) : orderDishes.toString();
+    }
+
+    private static String fullAddress(AddressBook addressBook) {
+        StringBuilder address = new StringBuilder();
+        for (String part : new String[]{addressBook.getProvinceName(), addressBook.getCityName(),
+                addressBook.getDistrictName(), addressBook.getDetail()}) {
+            if (part != null) {
+                address.append(part);
+            }
+        }
+        return address.toString();
+    }
+}
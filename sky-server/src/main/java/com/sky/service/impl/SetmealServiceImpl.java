@@ -0,0 +1,121 @@
+package com.sky.service.impl;
+
+import com.sky.cache.MenuChangeLog;
+import com.sky.cache.SetmealDishIndex;
+import com.sky.constant.MessageConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Setmeal;
+import com.sky.entity.SetmealDish;
+import com.sky.exception.SetmealEnableFailedException;
+import com.sky.mapper.SetmealDishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.service.ImageRenditionService;
+import com.sky.service.MenuSnapshotService;
+import com.sky.service.SetmealService;
+import com.sky.vo.SetmealVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 套餐业务层
+ */
+@Service
+@Slf4j
+public class SetmealServiceImpl implements SetmealService {
+
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private SetmealDishMapper setmealDishMapper;
+    @Autowired
+    private SetmealDishIndex setmealDishIndex;
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+    @Autowired
+    private MenuChangeLog menuChangeLog;
+    @Autowired
+    private ImageRenditionService imageRenditionService;
+
+    /**
+     * 查询分类下起售中的套餐及其包含的菜品
+     * @param categoryId
+     * @return
+     */
+    public List<SetmealVO> listWithDishes(Long categoryId) {
+        Setmeal setmeal = Setmeal.builder()
+                .categoryId(categoryId)
+                .status(StatusConstant.ENABLE)
+                .build();
+        List<SetmealVO> setmealVOList = setmealMapper.listVO(setmeal);
+        fillSetmealDishes(setmealVOList);
+        return setmealVOList;
+    }
+
+    /**
+     * 根据id批量查询套餐及其包含的菜品（不限状态）
+     * @param ids
+     * @return
+     */
+    public List<SetmealVO> listWithDishesByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<SetmealVO> setmealVOList = setmealMapper.listVOByIds(ids);
+        fillSetmealDishes(setmealVOList);
+        return setmealVOList;
+    }
+
+    /**
+     * 套餐起售、停售
+     * 起售前通过依赖索引检查套餐内是否有停售菜品，有则不能起售
+     * @param status
+     * @param id
+     */
+    public void startOrStop(Integer status, Long id) {
+        if (StatusConstant.ENABLE.equals(status) && setmealDishIndex.containsDisabledDish(id)) {
+            throw new SetmealEnableFailedException(MessageConstant.SETMEAL_ENABLE_FAILED);
+        }
+        Setmeal setmeal = setmealMapper.getById(id);
+        if (setmeal == null) {
+            return;
+        }
+        setmealMapper.updateStatus(Setmeal.builder()
+                .id(id)
+                .status(status)
+                .build());
+        menuSnapshotService.refresh(Collections.singletonList(setmeal.getCategoryId()));
+        menuChangeLog.record(MenuChangeLog.SETMEAL, Collections.singletonList(id));
+    }
+
+    /**
+     * 为一批套餐填充缩略图和包含的菜品：一条in查询查出来再按setmealId分组
+     * @param setmealVOList
+     */
+    private void fillSetmealDishes(List<SetmealVO> setmealVOList) {
+        if (setmealVOList.isEmpty()) {
+            return;
+        }
+        Map<Long, List<SetmealDish>> dishesBySetmealId = new HashMap<>();
+        for (SetmealVO setmealVO : setmealVOList) {
+            setmealVO.setThumbnail(imageRenditionService.thumbnailUrlOrImage(setmealVO.getImage()));
+            List<SetmealDish> setmealDishes = new ArrayList<>();
+            setmealVO.setSetmealDishes(setmealDishes);
+            dishesBySetmealId.put(setmealVO.getId(), setmealDishes);
+        }
+
+        for (SetmealDish setmealDish : setmealDishMapper.getBySetmealIds(dishesBySetmealId.keySet())) {
+            List<SetmealDish> setmealDishes = dishesBySetmealId.get(setmealDish.getSetmealId());
+            if (setmealDishes != null) {
+                setmealDishes.add(setmealDish);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.sky.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.cache.WeChatUserCache;
+import com.sky.constant.MessageConstant;
+import com.sky.dto.UserLoginDTO;
+import com.sky.entity.User;
+import com.sky.exception.LoginFailedException;
+import com.sky.mapper.UserMapper;
+import com.sky.properties.WeChatProperties;
+import com.sky.service.UserService;
+import com.sky.utils.HttpClientUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * C端用户业务层
+ */
+@Service
+@Slf4j
+public class UserServiceImpl implements UserService {
+
+    //微信登录接口地址
+    public static final String WX_LOGIN = "https://api.weixin.qq.com/sns/jscode2session";
+
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private WeChatProperties weChatProperties;
+    @Autowired
+    private WeChatUserCache weChatUserCache;
+
+    /**
+     * 微信登录
+     * code换openid后先查openid缓存，未命中时用一条upsert语句查出或创建用户，同一openid的并发登录只执行一次
+     * @param userLoginDTO
+     * @return 只有id和openid的用户，其他字段为空
+     */
+    public User wxLogin(UserLoginDTO userLoginDTO) {
+        String openid = getOpenid(userLoginDTO.getCode());
+        //openid为空表示登录失败
+        if (openid == null) {
+            throw new LoginFailedException(MessageConstant.LOGIN_FAILED);
+        }
+        return weChatUserCache.get(openid, this::getOrCreate);
+    }
+
+    /**
+     * 查出或创建openid对应的用户：新用户插入，老用户只回填id，一次数据库往返
+     * 老用户的其他字段并没有查出来，缓存里只放id和openid，不放插入时用的createTime
+     */
+    private User getOrCreate(String openid) {
+        User user = User.builder()
+                .openid(openid)
+                .createTime(LocalDateTime.now())
+                .build();
+        userMapper.upsertByOpenid(user);
+        return User.builder()
+                .id(user.getId())
+                .openid(openid)
+                .build();
+    }
+
+    /**
+     * 调用微信接口服务，获得当前微信用户的openid
+     */
+    private String getOpenid(String code) {
+        Map<String, String> map = new HashMap<>();
+        map.put("appid", weChatProperties.getAppid());
+        map.put("secret", weChatProperties.getSecret());
+        map.put("js_code", code);
+        map.put("grant_type", "authorization_code");
+        String json = HttpClientUtil.doGet(WX_LOGIN, map);
+
+        JSONObject jsonObject = JSON.parseObject(json);
+        return jsonObject == null ? null : jsonObject.getString("openid");
+    }
+}
@@ -0,0 +1,251 @@
+package com.sky.task;
+
+import com.sky.cache.AfterCommit;
+import com.sky.cache.OrderStatusCounter;
+import com.sky.constant.MessageConstant;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.OrderSearchMapper;
+import com.sky.mapper.SchedulerLeaseMapper;
+import com.sky.properties.OrderProperties;
+import com.sky.utils.TimingWheel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 订单超时处理：待付款订单超时取消、派送中订单自动完成
+ * 到期时间放在内存中的分层时间轮里，每秒推进一次，到期的订单分批用一条update处理，不再定时扫描订单表；
+ * 多实例部署时通过数据库租约选出一个节点执行：拿到租约时从数据库加载全部未结束的订单，
+ * 持有期间定期补充其他节点新产生的订单，失去租约时清空时间轮
+ */
+@Component
+@Slf4j
+public class OrderTimeoutTask {
+
+    private static final String LEASE_NAME = "order_timeout";
+    private static final long TICK_MILLIS = 1000;
+    // 1秒一格，4层覆盖约194天
+    private static final int WHEEL_LEVELS = 4;
+
+    // 进程名（pid@主机名）加随机后缀，同一台机器上的多个实例也不会重复
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "-"
+            + UUID.randomUUID().toString().substring(0, 8);
+    private final TimingWheel paymentWheel = new TimingWheel(TICK_MILLIS, WHEEL_LEVELS, System.currentTimeMillis());
+    private final TimingWheel deliveryWheel = new TimingWheel(TICK_MILLIS, WHEEL_LEVELS, System.currentTimeMillis());
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    private volatile boolean leader;
+    private long lastRenewAt;
+    private long lastSyncAt;
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderSearchMapper orderSearchMapper;
+    @Autowired
+    private SchedulerLeaseMapper schedulerLeaseMapper;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+    @Autowired
+    private OrderProperties orderProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 注册定时器数量、是否持有租约和处理订单数指标（/actuator/metrics/sky.order.timer.*）
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("sky.order.timer.pending", paymentWheel, TimingWheel::size)
+                .tag("type", "payment")
+                .description("等待超时取消的订单数")
+                .register(meterRegistry);
+        Gauge.builder("sky.order.timer.pending", deliveryWheel, TimingWheel::size)
+                .tag("type", "delivery")
+                .description("等待自动完成的订单数")
+                .register(meterRegistry);
+        Gauge.builder("sky.order.timer.leader", this, task -> task.leader ? 1 : 0)
+                .description("当前节点是否持有订单定时任务租约")
+                .register(meterRegistry);
+        FunctionCounter.builder("sky.order.timer.cancelled", cancelled, LongAdder::sum)
+                .description("超时取消的订单数")
+                .register(meterRegistry);
+        FunctionCounter.builder("sky.order.timer.completed", completed, LongAdder::sum)
+                .description("自动完成的订单数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 新订单待付款（在事务中则推迟到提交之后），未持有租约时由持有者定期从数据库补充
+     * @param orders 需要id和下单时间
+     */
+    public void onOrderCreated(Orders orders) {
+        if (leader) {
+            long deadline = deadline(orders.getOrderTime(), orderProperties.getPaymentTimeoutMinutes());
+            AfterCommit.run(() -> paymentWheel.add(orders.getId(), deadline));
+        }
+    }
+
+    /**
+     * 订单开始派送（在事务中则推迟到提交之后）
+     * @param id
+     * @param autoCompleteTime 派送时写入订单的自动完成时间
+     */
+    public void onDelivery(Long id, LocalDateTime autoCompleteTime) {
+        if (leader) {
+            long deadline = toMillis(autoCompleteTime);
+            AfterCommit.run(() -> deliveryWheel.add(id, deadline));
+        }
+    }
+
+    /**
+     * 派送中订单的自动完成时间：从派送时间和预计送达时间中较晚的一个起算
+     * @param dispatchTime          派送时间
+     * @param estimatedDeliveryTime 预计送达时间，可以为空
+     * @return
+     */
+    public LocalDateTime autoCompleteTime(LocalDateTime dispatchTime, LocalDateTime estimatedDeliveryTime) {
+        LocalDateTime from = estimatedDeliveryTime != null && estimatedDeliveryTime.isAfter(dispatchTime)
+                ? estimatedDeliveryTime : dispatchTime;
+        return from.plusMinutes(orderProperties.getAutoCompleteMinutes());
+    }
+
+    /**
+     * 订单已手动完成，不再需要自动完成
+     * @param id
+     */
+    public void onCompleted(Long id) {
+        AfterCommit.run(() -> deliveryWheel.remove(id));
+    }
+
+    /**
+     * 每秒一次：续约、补充定时器、推进时间轮并处理到期订单
+     */
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    public void tick() {
+        long now = System.currentTimeMillis();
+        try {
+            if (now - lastRenewAt >= TimeUnit.SECONDS.toMillis(orderProperties.getTimerLeaseSeconds()) / 3) {
+                renew(now);
+            }
+            if (!leader) {
+                return;
+            }
+            if (now - lastSyncAt >= TimeUnit.SECONDS.toMillis(orderProperties.getTimerSyncSeconds())) {
+                load(now);
+            }
+            fire(paymentWheel.advance(now), Orders.PENDING_PAYMENT, Orders.builder()
+                    .status(Orders.CANCELLED)
+                    .cancelReason(MessageConstant.ORDER_PAY_TIMEOUT)
+                    .cancelTime(LocalDateTime.now())
+                    .build(), cancelled);
+            fire(deliveryWheel.advance(now), Orders.DELIVERY_IN_PROGRESS, Orders.builder()
+                    .status(Orders.COMPLETED)
+                    .deliveryTime(LocalDateTime.now())
+                    .build(), completed);
+        } catch (Exception e) {
+            // 已从时间轮取出但没处理成功的订单，下次同步时会重新加载
+            log.warn("订单超时处理失败", e);
+        }
+    }
+
+    /**
+     * 应用关闭时主动释放租约
+     */
+    @PreDestroy
+    public void release() {
+        if (leader) {
+            leader = false;
+            schedulerLeaseMapper.release(LEASE_NAME, owner);
+            log.info("已释放订单定时任务租约：{}", owner);
+        }
+    }
+
+    private void renew(long now) {
+        boolean acquired;
+        try {
+            acquired = schedulerLeaseMapper.tryAcquire(LEASE_NAME, owner, orderProperties.getTimerLeaseSeconds()) == 1;
+        } catch (Exception e) {
+            // 续约失败时无法确认租约是否还在，按失去租约处理，避免与其他节点同时执行
+            log.warn("订单定时任务租约续期失败", e);
+            acquired = false;
+        }
+        lastRenewAt = now;
+
+        if (acquired && !leader) {
+            log.info("获得订单定时任务租约：{}", owner);
+            leader = true;
+            load(now);
+        } else if (!acquired && leader) {
+            log.info("失去订单定时任务租约：{}", owner);
+            leader = false;
+            paymentWheel.clear();
+            deliveryWheel.clear();
+        }
+    }
+
+    /**
+     * 从数据库加载待付款和派送中的订单，已在时间轮中的订单重新添加，到期时间不变
+     */
+    private void load(long now) {
+        List<Orders> pending = orderMapper.listTimerByStatus(Orders.PENDING_PAYMENT);
+        for (Orders orders : pending) {
+            paymentWheel.add(orders.getId(), deadline(orders.getOrderTime(), orderProperties.getPaymentTimeoutMinutes()));
+        }
+        List<Orders> delivering = orderMapper.listTimerByStatus(Orders.DELIVERY_IN_PROGRESS);
+        for (Orders orders : delivering) {
+            //执行db/order_auto_complete.sql之前就已派送的订单没有自动完成时间，按下单时间补算
+            LocalDateTime autoCompleteTime = orders.getAutoCompleteTime() != null ? orders.getAutoCompleteTime()
+                    : autoCompleteTime(orders.getOrderTime(), orders.getEstimatedDeliveryTime());
+            deliveryWheel.add(orders.getId(), toMillis(autoCompleteTime));
+        }
+        lastSyncAt = now;
+        log.debug("订单定时器已同步，待付款：{}，派送中：{}", pending.size(), delivering.size());
+    }
+
+    /**
+     * 到期订单分批更新，只更新仍处于原状态的订单，已被其他操作改变状态的自然跳过
+     */
+    private void fire(List<Long> ids, Integer fromStatus, Orders target, LongAdder processed) {
+        int batchSize = orderProperties.getTimerBatchSize();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            //订单和搜索读模型在同一个事务里更新，不会一个成功一个失败
+            int rows = transactionTemplate.execute(status -> {
+                int updated = orderMapper.updateStatusByIds(target, fromStatus, batch);
+                orderSearchMapper.syncStatusByIds(batch);
+                orderStatusCounter.onTransition(fromStatus, target.getStatus(), updated);
+                return updated;
+            });
+            processed.add(rows);
+            log.info("订单状态{}到期处理{}个，实际更新为{}的{}个", fromStatus, batch.size(), target.getStatus(), rows);
+        }
+    }
+
+    private static long deadline(LocalDateTime orderTime, long minutes) {
+        return toMillis(orderTime.plusMinutes(minutes));
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
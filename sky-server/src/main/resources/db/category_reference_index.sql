@@ -0,0 +1,3 @@
+-- 删除分类时用 not exists 判断是否被菜品、套餐引用（CategoryMapper.deleteByIdIfUnreferenced），依赖这两个索引
+alter table dish add index idx_dish_category_id (category_id);
+alter table setmeal add index idx_setmeal_category_id (category_id);
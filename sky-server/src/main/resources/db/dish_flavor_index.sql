@@ -0,0 +1,2 @@
+-- 菜品口味按dish_id批量查询（DishFlavorMapper.getByDishIds）
+alter table dish_flavor add index idx_dish_flavor_dish_id (dish_id);
@@ -0,0 +1,4 @@
+-- 游标分页依赖的索引，排序列与 EmployeeMapper/CategoryMapper.pageQueryByCursor 的 order by 一致
+-- 分类是 sort升序、create_time和id降序的混合方向，需要MySQL 8.0的降序索引才能避免filesort
+alter table employee add index idx_employee_create_time_id (create_time, id);
+alter table category add index idx_category_sort_create_time_id (sort, create_time desc, id desc);
@@ -0,0 +1,3 @@
+-- 派送中订单的自动完成时间，派送时写入，OrderTimeoutTask 重启或接手租约后据此恢复定时器
+alter table orders
+    add column auto_complete_time datetime default null comment '自动完成时间';
@@ -0,0 +1,28 @@
+-- 管理端订单搜索读模型：只保留搜索条件和列表展示需要的列，菜品摘要预先拼好，搜索不再访问宽表orders、不再关联order_detail
+-- 订单下单、状态变化时由 OrderSearchMapper 同步维护
+create table if not exists order_search
+(
+    id           bigint         not null primary key comment '订单id，与orders.id相同',
+    number       varchar(50)    not null comment '订单号',
+    status       int            not null comment '订单状态',
+    user_id      bigint         not null comment '下单用户',
+    order_time   datetime       not null comment '下单时间',
+    amount       decimal(10, 2) not null comment '实收金额',
+    phone        varchar(11)  default null comment '手机号',
+    consignee    varchar(32)  default null comment '收货人',
+    address      varchar(255) default null comment '地址',
+    order_dishes varchar(512) default null comment '订单菜品摘要，例如 宫保鸡丁*2;米饭*1;',
+    index idx_order_search_status_time (status, order_time),
+    index idx_order_search_time (order_time),
+    index idx_order_search_number (number),
+    index idx_order_search_phone_time (phone, order_time),
+    index idx_order_search_user_time (user_id, order_time)
+) comment '订单搜索读模型';
+
+-- 回填已有订单
+insert ignore into order_search (id, number, status, user_id, order_time, amount, phone, consignee, address, order_dishes)
+select o.id, o.number, o.status, o.user_id, o.order_time, o.amount, o.phone, o.consignee, o.address,
+       left(group_concat(concat(d.name, '*', d.number, ';') order by d.id separator ''), 512)
+from orders o
+         left join order_detail d on d.order_id = o.id
+group by o.id;
@@ -0,0 +1,2 @@
+-- 订单状态计数定时对账使用的索引，OrderMapper.countStatus 只扫索引
+alter table orders add index idx_orders_status (status);
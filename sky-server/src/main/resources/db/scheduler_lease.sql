@@ -0,0 +1,9 @@
+-- 定时任务租约表：多实例部署时只有持有租约的节点执行订单超时取消、自动完成（SchedulerLeaseMapper）
+create table if not exists scheduler_lease
+(
+    name      varchar(64) not null primary key comment '任务名',
+    owner     varchar(128) default null comment '当前持有租约的节点',
+    expire_at datetime     default null comment '租约到期时间（数据库时间）'
+) comment '定时任务租约';
+
+insert ignore into scheduler_lease (name) values ('order_timeout');
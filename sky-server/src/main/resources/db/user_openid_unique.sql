@@ -0,0 +1,2 @@
+-- 微信登录用一条 insert ... on duplicate key update 完成“不存在则创建”（UserMapper.upsertByOpenid），openid需要唯一
+alter table user add unique index uk_user_openid (openid);
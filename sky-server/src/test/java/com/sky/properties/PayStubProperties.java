@@ -0,0 +1,26 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地支付网关替身和结账压测的配置，只在paystub环境下使用，放在测试classpath中
+ */
+@Component
+@ConfigurationProperties(prefix = "sky.paystub")
+@Data
+public class PayStubProperties {
+
+    private String platformPrivateKeyFilePath; //替身使用的平台私钥，用来给响应和回调签名
+    private String platformCertFilePath; //与平台私钥对应的平台证书，取证书序列号
+    private long notifyDelayMillis = 50; //下单或退款后延迟多久发送回调
+
+    private boolean benchmarkEnabled = false; //启动后是否执行结账压测
+    private int benchmarkThreads = 16; //压测并发线程数
+    private int benchmarkOrders = 2000; //压测订单数
+    private int benchmarkWarmupOrders = 200; //预热订单数，不计入统计
+    private long benchmarkCallbackTimeoutMillis = 10000; //等待回调的超时时间
+    private long benchmarkUserIdBase = 900000000L; //压测用户id起点，每个订单使用独立的用户，避免并发下单争抢同一个购物车
+
+}
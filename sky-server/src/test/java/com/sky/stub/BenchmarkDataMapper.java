@@ -0,0 +1,31 @@
+package com.sky.stub;
+
+import com.sky.entity.AddressBook;
+import com.sky.entity.ShoppingCart;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+
+/**
+ * 结账压测用的数据准备，只在测试classpath中存在
+ */
+@Mapper
+public interface BenchmarkDataMapper {
+
+    /**
+     * 插入压测用户的收货地址
+     * @param addressBook
+     */
+    @Insert("insert into address_book (user_id, consignee, phone, sex, province_name, city_name, district_name, detail, is_default) " +
+            "values (#{userId}, #{consignee}, #{phone}, #{sex}, #{provinceName}, #{cityName}, #{districtName}, #{detail}, #{isDefault})")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    void insertAddressBook(AddressBook addressBook);
+
+    /**
+     * 插入压测用户的购物车条目
+     * @param shoppingCart
+     */
+    @Insert("insert into shopping_cart (name, user_id, dish_id, setmeal_id, dish_flavor, number, amount, image, create_time) " +
+            "values (#{name}, #{userId}, #{dishId}, #{setmealId}, #{dishFlavor}, #{number}, #{amount}, #{image}, #{createTime})")
+    void insertShoppingCart(ShoppingCart shoppingCart);
+}
@@ -0,0 +1,217 @@
+package com.sky.stub;
+
+import com.alibaba.fastjson.JSONObject;
+import com.sky.context.BaseContext;
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.entity.AddressBook;
+import com.sky.entity.ShoppingCart;
+import com.sky.properties.PayStubProperties;
+import com.sky.service.OrderService;
+import com.sky.utils.WeChatPayUtil;
+import com.sky.vo.OrderSubmitVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 结账链路压测，paystub环境下 sky.paystub.benchmark-enabled=true 时在启动完成后执行一次
+ * 每个订单依次经过：提交订单（OrderService.submitOrder，读地址和购物车、一个短事务写入订单）→
+ * 支付下单（WeChatPayUtil.pay，含请求签名、响应验签和调起支付的二次签名）→ 等待支付回调到达，
+ * 按阶段统计p50/p99延迟，并输出整体吞吐量。先跑预热订单，不计入统计。
+ * 每个订单使用独立的压测用户，提交前为其写入一条地址和一条购物车条目，这部分准备不计入耗时
+ */
+@Component
+@Profile("paystub")
+@Slf4j
+public class PayBenchmarkRunner implements ApplicationRunner {
+
+    private static final String STAGE_SUBMIT = "submit";
+    private static final String STAGE_PAY = "pay";
+    private static final String STAGE_CALLBACK = "callback";
+    private static final String STAGE_TOTAL = "total";
+
+    @Autowired
+    private PayStubProperties payStubProperties;
+    @Autowired
+    private WeChatPayUtil weChatPayUtil;
+    @Autowired
+    private PayCallbackTracker payCallbackTracker;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private BenchmarkDataMapper benchmarkDataMapper;
+
+    private final AtomicInteger orderSequence = new AtomicInteger();
+
+    public void run(ApplicationArguments args) throws Exception {
+        if (!payStubProperties.isBenchmarkEnabled()) {
+            return;
+        }
+        log.info("结账压测开始：线程数{}，预热订单{}，压测订单{}", payStubProperties.getBenchmarkThreads(),
+                payStubProperties.getBenchmarkWarmupOrders(), payStubProperties.getBenchmarkOrders());
+        runRound(payStubProperties.getBenchmarkWarmupOrders());
+        Map<String, long[]> latencies = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        int succeeded = runRound(payStubProperties.getBenchmarkOrders(), latencies);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("结账压测完成：成功{}/{}，耗时{}s，吞吐量{}单/s", succeeded, payStubProperties.getBenchmarkOrders(),
+                String.format("%.2f", seconds), String.format("%.1f", succeeded / seconds));
+        for (Map.Entry<String, long[]> entry : latencies.entrySet()) {
+            long[] values = Arrays.copyOf(entry.getValue(), succeeded);
+            Arrays.sort(values);
+            log.info("阶段{}：p50={}ms p99={}ms max={}ms", entry.getKey(),
+                    millis(percentile(values, 0.50)), millis(percentile(values, 0.99)),
+                    millis(values.length == 0 ? 0 : values[values.length - 1]));
+        }
+    }
+
+    private int runRound(int orders) throws InterruptedException {
+        return runRound(orders, new LinkedHashMap<>());
+    }
+
+    /**
+     * 并发跑一轮订单，成功订单的各阶段耗时（纳秒）写进latencies
+     * @return 成功的订单数
+     */
+    private int runRound(int orders, Map<String, long[]> latencies) throws InterruptedException {
+        long[] submit = new long[orders];
+        long[] pay = new long[orders];
+        long[] callback = new long[orders];
+        long[] total = new long[orders];
+        AtomicInteger succeeded = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(payStubProperties.getBenchmarkThreads());
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            futures.add(executor.submit(() -> {
+                long[] result = runOrder();
+                if (result != null) {
+                    int index = succeeded.getAndIncrement();
+                    submit[index] = result[0];
+                    pay[index] = result[1];
+                    callback[index] = result[2];
+                    total[index] = result[0] + result[1] + result[2];
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                log.warn("压测订单执行失败", e);
+            }
+        }
+        executor.shutdown();
+
+        latencies.put(STAGE_SUBMIT, submit);
+        latencies.put(STAGE_PAY, pay);
+        latencies.put(STAGE_CALLBACK, callback);
+        latencies.put(STAGE_TOTAL, total);
+        return succeeded.get();
+    }
+
+    /**
+     * 跑一个订单
+     * @return {提交订单耗时, 支付下单耗时, 等待回调耗时}，失败返回null
+     */
+    private long[] runOrder() {
+        long userId = payStubProperties.getBenchmarkUserIdBase() + orderSequence.incrementAndGet();
+        String outTradeNo = null;
+        try {
+            OrdersSubmitDTO ordersSubmitDTO = prepare(userId);
+
+            BaseContext.setCurrentId(userId);
+            long start = System.nanoTime();
+            OrderSubmitVO order = orderService.submitOrder(ordersSubmitDTO);
+            long submitted = System.nanoTime();
+
+            outTradeNo = order.getOrderNumber();
+            CompletableFuture<Long> callback = payCallbackTracker.expect(outTradeNo);
+            long payStart = System.nanoTime();
+            JSONObject result = weChatPayUtil.pay(outTradeNo, order.getOrderAmount(), "压测订单", "benchmark-openid");
+            long paid = System.nanoTime();
+            if (result.getString("paySign") == null) {
+                log.warn("压测订单支付下单失败：{}", result);
+                return null;
+            }
+            long arrived = callback.get(payStubProperties.getBenchmarkCallbackTimeoutMillis(), TimeUnit.MILLISECONDS);
+            return new long[]{submitted - start, paid - payStart, arrived - paid};
+        } catch (Exception e) {
+            log.warn("压测订单失败：用户{}", userId, e);
+            return null;
+        } finally {
+            BaseContext.removeCurrentId();
+            if (outTradeNo != null) {
+                payCallbackTracker.cancel(outTradeNo);
+            }
+        }
+    }
+
+    /**
+     * 为压测用户写入一条地址和一条购物车条目
+     * @param userId
+     * @return 提交订单的参数
+     */
+    private OrdersSubmitDTO prepare(long userId) {
+        AddressBook addressBook = AddressBook.builder()
+                .userId(userId)
+                .consignee("压测用户")
+                .phone("13800000000")
+                .sex("1")
+                .provinceName("北京市")
+                .cityName("市辖区")
+                .districtName("东城区")
+                .detail("压测地址")
+                .isDefault(1)
+                .build();
+        benchmarkDataMapper.insertAddressBook(addressBook);
+        benchmarkDataMapper.insertShoppingCart(ShoppingCart.builder()
+                .name("压测菜品")
+                .userId(userId)
+                .number(1)
+                .amount(new BigDecimal("0.01"))
+                .createTime(LocalDateTime.now())
+                .build());
+
+        OrdersSubmitDTO ordersSubmitDTO = new OrdersSubmitDTO();
+        ordersSubmitDTO.setAddressBookId(addressBook.getId());
+        ordersSubmitDTO.setPayMethod(1);
+        ordersSubmitDTO.setRemark("压测订单");
+        ordersSubmitDTO.setEstimatedDeliveryTime(LocalDateTime.now().plusHours(1));
+        ordersSubmitDTO.setDeliveryStatus(1);
+        ordersSubmitDTO.setTablewareNumber(0);
+        ordersSubmitDTO.setTablewareStatus(1);
+        ordersSubmitDTO.setPackAmount(0);
+        return ordersSubmitDTO;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,46 @@
+package com.sky.stub;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录支付回调到达的时间，压测用来等待某个订单的回调
+ */
+@Component
+@Profile("paystub")
+public class PayCallbackTracker {
+
+    private final Map<String, CompletableFuture<Long>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 登记一个等待回调的订单，需在发起支付前调用
+     * @param outTradeNo 商户订单号
+     * @return 回调到达时以System.nanoTime()完成
+     */
+    public CompletableFuture<Long> expect(String outTradeNo) {
+        return pending.computeIfAbsent(outTradeNo, key -> new CompletableFuture<>());
+    }
+
+    /**
+     * 回调已到达
+     * @param outTradeNo
+     */
+    public void arrived(String outTradeNo) {
+        CompletableFuture<Long> future = pending.remove(outTradeNo);
+        if (future != null) {
+            future.complete(System.nanoTime());
+        }
+    }
+
+    /**
+     * 放弃等待
+     * @param outTradeNo
+     */
+    public void cancel(String outTradeNo) {
+        pending.remove(outTradeNo);
+    }
+}
@@ -0,0 +1,243 @@
+package com.sky.stub;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.properties.PayStubProperties;
+import com.sky.properties.WeChatProperties;
+import com.sky.utils.HttpClientUtil;
+import com.wechat.pay.contrib.apache.httpclient.util.AesUtil;
+import com.wechat.pay.contrib.apache.httpclient.util.PemUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.RandomStringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.util.ResourceUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.HttpServletResponse;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地支付网关替身，只在paystub环境下启用
+ * 模拟微信支付的jsapi下单、申请退款接口：响应按微信支付的规则用测试平台私钥签名，WeChatPayUtil能正常验签；
+ * 下单、退款后延迟发送AEAD_AES_256_GCM加密的回调通知到请求里的notify_url。另提供一个回调接收地址供压测统计回调到达时间
+ */
+@RestController
+@RequestMapping("/stub/wechatpay")
+@Profile("paystub")
+@Slf4j
+public class WeChatPayStubController {
+
+    private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int GCM_TAG_LENGTH_BIT = 128;
+
+    @Autowired
+    private WeChatProperties weChatProperties;
+    @Autowired
+    private PayStubProperties payStubProperties;
+    @Autowired
+    private PayCallbackTracker payCallbackTracker;
+
+    private PrivateKey platformPrivateKey;
+    private String platformSerialNo;
+    private ScheduledExecutorService notifyExecutor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(ResourceUtils.getFile(payStubProperties.getPlatformPrivateKeyFilePath()))) {
+            platformPrivateKey = PemUtil.loadPrivateKey(inputStream);
+        }
+        try (FileInputStream inputStream = new FileInputStream(ResourceUtils.getFile(payStubProperties.getPlatformCertFilePath()))) {
+            X509Certificate certificate = PemUtil.loadCertificate(inputStream);
+            platformSerialNo = certificate.getSerialNumber().toString(16).toUpperCase();
+        }
+        notifyExecutor = Executors.newScheduledThreadPool(4, r -> {
+            Thread thread = new Thread(r, "paystub-notify");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.warn("本地支付网关替身已启用，平台证书序列号：{}", platformSerialNo);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        notifyExecutor.shutdownNow();
+    }
+
+    /**
+     * jsapi下单：返回prepay_id，稍后发送支付成功回调
+     * @param body
+     * @param response
+     */
+    @PostMapping("/v3/pay/transactions/jsapi")
+    public void jsapi(@RequestBody String body, HttpServletResponse response) throws Exception {
+        JSONObject request = JSON.parseObject(body);
+        String outTradeNo = request.getString("out_trade_no");
+        String prepayId = "stub" + UUID.randomUUID().toString().replace("-", "");
+
+        JSONObject transaction = new JSONObject();
+        transaction.put("appid", request.getString("appid"));
+        transaction.put("mchid", request.getString("mchid"));
+        transaction.put("out_trade_no", outTradeNo);
+        transaction.put("transaction_id", "42" + RandomStringUtils.randomNumeric(26));
+        transaction.put("trade_type", "JSAPI");
+        transaction.put("trade_state", "SUCCESS");
+        transaction.put("trade_state_desc", "支付成功");
+        transaction.put("success_time", OffsetDateTime.now().toString());
+        transaction.put("payer", request.getJSONObject("payer"));
+        transaction.put("amount", request.getJSONObject("amount"));
+        scheduleNotify(request.getString("notify_url"), "TRANSACTION.SUCCESS", "transaction", transaction);
+
+        JSONObject result = new JSONObject();
+        result.put("prepay_id", prepayId);
+        writeSigned(response, result.toJSONString());
+    }
+
+    /**
+     * 申请退款：返回处理中，稍后发送退款成功回调
+     * @param body
+     * @param response
+     */
+    @PostMapping("/v3/refund/domestic/refunds")
+    public void refunds(@RequestBody String body, HttpServletResponse response) throws Exception {
+        JSONObject request = JSON.parseObject(body);
+        String refundId = "50" + RandomStringUtils.randomNumeric(27);
+
+        JSONObject refund = new JSONObject();
+        refund.put("mchid", weChatProperties.getMchid());
+        refund.put("out_trade_no", request.getString("out_trade_no"));
+        refund.put("out_refund_no", request.getString("out_refund_no"));
+        refund.put("refund_id", refundId);
+        refund.put("refund_status", "SUCCESS");
+        refund.put("success_time", OffsetDateTime.now().toString());
+        refund.put("amount", request.getJSONObject("amount"));
+        scheduleNotify(request.getString("notify_url"), "REFUND.SUCCESS", "refund", refund);
+
+        JSONObject result = new JSONObject();
+        result.put("refund_id", refundId);
+        result.put("out_refund_no", request.getString("out_refund_no"));
+        result.put("out_trade_no", request.getString("out_trade_no"));
+        result.put("channel", "ORIGINAL");
+        result.put("status", "PROCESSING");
+        result.put("create_time", OffsetDateTime.now().toString());
+        result.put("amount", request.getJSONObject("amount"));
+        writeSigned(response, result.toJSONString());
+    }
+
+    /**
+     * 回调接收地址：解密通知内容，记录回调到达
+     * @param body
+     * @return
+     */
+    @PostMapping("/notify")
+    public Map<String, String> receiveNotify(@RequestBody String body) throws GeneralSecurityException {
+        JSONObject resource = JSON.parseObject(body).getJSONObject("resource");
+        String plainText = new AesUtil(weChatProperties.getApiV3Key().getBytes(StandardCharsets.UTF_8))
+                .decryptToString(resource.getString("associated_data").getBytes(StandardCharsets.UTF_8),
+                        resource.getString("nonce").getBytes(StandardCharsets.UTF_8),
+                        resource.getString("ciphertext"));
+        payCallbackTracker.arrived(JSON.parseObject(plainText).getString("out_trade_no"));
+
+        Map<String, String> result = new HashMap<>();
+        result.put("code", "SUCCESS");
+        result.put("message", "SUCCESS");
+        return result;
+    }
+
+    /**
+     * 按微信支付的规则给响应签名：签名串为 时间戳\n随机串\n响应体\n
+     */
+    private void writeSigned(HttpServletResponse response, String body) throws Exception {
+        String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+        String nonce = RandomStringUtils.randomAlphanumeric(32);
+        byte[] json = body.getBytes(StandardCharsets.UTF_8);
+
+        response.setHeader("Request-ID", UUID.randomUUID().toString());
+        response.setHeader("Wechatpay-Serial", platformSerialNo);
+        response.setHeader("Wechatpay-Timestamp", timestamp);
+        response.setHeader("Wechatpay-Nonce", nonce);
+        response.setHeader("Wechatpay-Signature", sign(timestamp + "\n" + nonce + "\n" + body + "\n"));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(json.length);
+        response.getOutputStream().write(json);
+    }
+
+    private String sign(String message) throws GeneralSecurityException {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(platformPrivateKey);
+        signature.update(message.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(signature.sign());
+    }
+
+    /**
+     * 延迟发送加密的回调通知，通知头同样带签名
+     */
+    private void scheduleNotify(String notifyUrl, String eventType, String originalType, JSONObject content) {
+        if (notifyUrl == null) {
+            return;
+        }
+        notifyExecutor.schedule(() -> {
+            try {
+                String nonce = RandomStringUtils.randomAlphanumeric(12);
+                JSONObject resource = new JSONObject();
+                resource.put("original_type", originalType);
+                resource.put("algorithm", "AEAD_AES_256_GCM");
+                resource.put("ciphertext", encrypt(originalType, nonce, content.toJSONString()));
+                resource.put("associated_data", originalType);
+                resource.put("nonce", nonce);
+
+                JSONObject notification = new JSONObject();
+                notification.put("id", UUID.randomUUID().toString());
+                notification.put("create_time", OffsetDateTime.now().toString());
+                notification.put("resource_type", "encrypt-resource");
+                notification.put("event_type", eventType);
+                notification.put("summary", "TRANSACTION.SUCCESS".equals(eventType) ? "支付成功" : "退款成功");
+                notification.put("resource", resource);
+                String body = notification.toJSONString();
+
+                String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+                String headerNonce = RandomStringUtils.randomAlphanumeric(32);
+                Map<String, String> headers = new HashMap<>();
+                headers.put("Wechatpay-Serial", platformSerialNo);
+                headers.put("Wechatpay-Timestamp", timestamp);
+                headers.put("Wechatpay-Nonce", headerNonce);
+                headers.put("Wechatpay-Signature", sign(timestamp + "\n" + headerNonce + "\n" + body + "\n"));
+                HttpClientUtil.doPost4Json(notifyUrl, body, headers);
+            } catch (Exception e) {
+                log.error("支付网关替身发送回调失败：{}", notifyUrl, e);
+            }
+        }, payStubProperties.getNotifyDelayMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private String encrypt(String associatedData, String nonce, String plainText) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(GCM_TRANSFORMATION);
+        SecretKeySpec key = new SecretKeySpec(weChatProperties.getApiV3Key().getBytes(StandardCharsets.UTF_8), "AES");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH_BIT, nonce.getBytes(StandardCharsets.UTF_8)));
+        cipher.updateAAD(associatedData.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+}